@@ -23,29 +23,58 @@
 package pascal.taie.analysis.dataflow.analysis;
 
 import pascal.taie.analysis.MethodAnalysis;
-import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.solver.DataflowSolver;
 import pascal.taie.analysis.dataflow.solver.Solver;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
 
 public abstract class AbstractDataflowAnalysis<Node, Fact>
         extends MethodAnalysis
         implements DataflowAnalysis<Node, Fact> {
 
-    private final Solver<Node, Fact> solver;
-
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+    }
+
+    /**
+     * Creates a solver for given analysis. The kind of the solver
+     * is specified by option "solver" of this analysis. With option
+     * "granularity: block", the analysis is solved on basic blocks, and
+     * with option "storage: boundary" (implied by "granularity: block"),
+     * the result only keeps the facts at the boundaries of basic blocks.
+     * With option "stats: true", the statistics of solving each method
+     * are reported to the output directory.
+     * Subclasses that override {@link #analyze(IR)} shall create their
+     * solvers by this method.
+     */
+    protected final <F> DataflowSolver<Node, F> makeSolver(DataflowAnalysis<Node, F> analysis) {
+        if (getOptions().getBooleanOrDefault("stats", false)) {
+            return Solver.makeInstrumentedSolver(analysis, getId(), this::makeBaseSolver);
+        }
+        return makeBaseSolver(analysis);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <F> DataflowSolver<Node, F> makeBaseSolver(DataflowAnalysis<Node, F> analysis) {
+        String kind = getOptions().getString("solver");
+        boolean solveOnBlocks = "block".equals(getOptions().getString("granularity"));
+        if (solveOnBlocks || "boundary".equals(getOptions().getString("storage"))) {
+            // basic blocks are only available for CFG<Stmt>
+            return (DataflowSolver<Node, F>) Solver.makeBlockSolver(
+                    (DataflowAnalysis<Stmt, F>) analysis, kind, solveOnBlocks);
+        }
+        return Solver.makeSolver(analysis, kind);
     }
 
     @Override
-    public DataflowResult<Node, Fact> analyze(IR ir) {
+    public NodeResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+        return makeSolver(this).solve(cfg);
     }
 
     /**
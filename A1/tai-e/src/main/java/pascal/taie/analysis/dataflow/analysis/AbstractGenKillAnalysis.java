@@ -0,0 +1,172 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+/**
+ * Base class for gen/kill data-flow analyses, whose transfer function is
+ * OUT = gen U (IN - kill) for forward analyses, and
+ * IN = gen U (OUT - kill) for backward analyses.
+ * <p>
+ * For each method, the gen and kill sets of all statements are computed
+ * only once before solving (see {@link #analyze(IR)}), and then transfer
+ * updates the target fact in place without creating temporary facts.
+ * This relies on that the facts only grow during solving, thus meet of
+ * gen/kill analyses is always union.
+ *
+ * @param <E> type of the elements of data-flow facts
+ */
+public abstract class AbstractGenKillAnalysis<E>
+        extends AbstractDataflowAnalysis<Stmt, SetFact<E>> {
+
+    protected AbstractGenKillAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    /**
+     * Adds the elements generated by given statement to {@code gen}.
+     */
+    protected abstract void computeGen(Stmt stmt, SetFact<E> gen);
+
+    /**
+     * Adds the elements killed by given statement to {@code kill}.
+     */
+    protected abstract void computeKill(Stmt stmt, SetFact<E> kill);
+
+    @Override
+    public void meetInto(SetFact<E> fact, SetFact<E> target) {
+        target.union(fact);
+    }
+
+    /**
+     * Transfers given statement with its gen and kill sets computed
+     * on the fly. Solvers started by {@link #analyze(IR)} use the
+     * precomputed gen and kill sets instead.
+     */
+    @Override
+    public boolean transferNode(Stmt stmt, SetFact<E> in, SetFact<E> out) {
+        SetFact<E> gen = newInitialFact();
+        computeGen(stmt, gen);
+        SetFact<E> kill = newInitialFact();
+        computeKill(stmt, kill);
+        return transfer(gen, kill, in, out);
+    }
+
+    private boolean transfer(SetFact<E> gen, SetFact<E> kill,
+                             SetFact<E> in, SetFact<E> out) {
+        SetFact<E> source = isForward() ? in : out;
+        SetFact<E> target = isForward() ? out : in;
+        boolean changed = target.unionDifference(source, kill);
+        changed |= target.union(gen);
+        return changed;
+    }
+
+    @Override
+    public NodeResult<Stmt, SetFact<E>> analyze(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        return makeSolver(new GenKillTransfer(cfg)).solve(cfg);
+    }
+
+    /**
+     * The analysis for a specific method, which holds the precomputed
+     * gen and kill sets of the statements of the method, indexed by
+     * {@link Stmt#getIndex()}. Other functionalities are delegated to
+     * the enclosing analysis.
+     */
+    private class GenKillTransfer implements DataflowAnalysis<Stmt, SetFact<E>> {
+
+        private final SetFact<E>[] gens;
+
+        private final SetFact<E>[] kills;
+
+        @SuppressWarnings("unchecked")
+        private GenKillTransfer(CFG<Stmt> cfg) {
+            int size = 0;
+            for (Stmt stmt : cfg) {
+                size = Math.max(size, stmt.getIndex() + 1);
+            }
+            gens = (SetFact<E>[]) new SetFact<?>[size];
+            kills = (SetFact<E>[]) new SetFact<?>[size];
+            // the gen and kill sets of a statement are small, thus they are
+            // kept in sparse facts, otherwise the sets of all statements
+            // would take memory quadratic in the size of the method
+            for (Stmt stmt : cfg) {
+                SetFact<E> gen = newInitialFact();
+                computeGen(stmt, gen);
+                gens[stmt.getIndex()] = gen;
+                SetFact<E> kill = newInitialFact();
+                computeKill(stmt, kill);
+                kills[stmt.getIndex()] = kill;
+            }
+        }
+
+        @Override
+        public boolean isForward() {
+            return AbstractGenKillAnalysis.this.isForward();
+        }
+
+        @Override
+        public SetFact<E> newBoundaryFact(CFG<Stmt> cfg) {
+            return AbstractGenKillAnalysis.this.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public SetFact<E> newInitialFact() {
+            return AbstractGenKillAnalysis.this.newInitialFact();
+        }
+
+        @Override
+        public SetFact<E> newInitialFact(CFG<Stmt> cfg) {
+            return AbstractGenKillAnalysis.this.newInitialFact(cfg);
+        }
+
+        @Override
+        public void meetInto(SetFact<E> fact, SetFact<E> target) {
+            AbstractGenKillAnalysis.this.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, SetFact<E> in, SetFact<E> out) {
+            int index = stmt.getIndex();
+            return transfer(gens[index], kills[index], in, out);
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return AbstractGenKillAnalysis.this.needTransferEdge(edge);
+        }
+
+        @Override
+        public SetFact<E> transferEdge(Edge<Stmt> edge, SetFact<E> nodeFact) {
+            return AbstractGenKillAnalysis.this.transferEdge(edge, nodeFact);
+        }
+    }
+}
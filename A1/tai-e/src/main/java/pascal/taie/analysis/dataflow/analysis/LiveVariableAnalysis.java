@@ -22,9 +22,13 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
@@ -33,12 +37,28 @@ import pascal.taie.ir.stmt.Stmt;
  * Implementation of classic live variable analysis.
  */
 public class LiveVariableAnalysis extends
-        AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+        AbstractGenKillAnalysis<Var> {
 
     public static final String ID = "livevar";
 
+    /**
+     * Whether to represent live variables as bit vectors indexed by
+     * {@link Var#getIndex()}, which is selected by option "fact: bitset".
+     */
+    private final boolean useBitSet;
+
+    /**
+     * Whether to compute live variables variable by variable,
+     * which is selected by option "mode: sparse".
+     *
+     * @see SparseLiveVarResult
+     */
+    private final boolean sparse;
+
     public LiveVariableAnalysis(AnalysisConfig config) {
         super(config);
+        useBitSet = "bitset".equals(getOptions().getString("fact"));
+        sparse = "sparse".equals(getOptions().getString("mode"));
     }
 
     @Override
@@ -49,7 +69,14 @@ public class LiveVariableAnalysis extends
     @Override
     public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
         // TODO - finish me
-        return new SetFact<>();
+        return newInitialFact(cfg);
+    }
+
+    @Override
+    public SetFact<Var> newInitialFact(CFG<Stmt> cfg) {
+        return useBitSet ?
+                new BitSetFact<>(cfg.getIR().getVars()) :
+                newInitialFact();
     }
 
     @Override
@@ -59,32 +86,28 @@ public class LiveVariableAnalysis extends
     }
 
     @Override
-    public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
-        // TODO - finish me
-        target.union(fact);
+    public NodeResult<Stmt, SetFact<Var>> analyze(IR ir) {
+        if (sparse) {
+            return new SparseLiveVarResult(this, ir.getResult(CFGBuilder.ID));
+        }
+        return super.analyze(ir);
     }
 
     @Override
-    public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
-        // TODO - finish me
-        var out_copy = out.copy();
-        var def = stmt.getDef();
-        var use = stmt.getUses();
-
-        if (def.isPresent()) {
-            var lv = def.get();
-
-            if (lv instanceof Var) {
-                out_copy.remove((Var) lv);
-            }
-        }
-        for (RValue v : use) {
-            if (v instanceof Var) {
-                out_copy.add((Var) v);
+    protected void computeGen(Stmt stmt, SetFact<Var> gen) {
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var) {
+                gen.add(var);
             }
-
         }
+    }
 
-        return in.union(out_copy);
+    @Override
+    protected void computeKill(Stmt stmt, SetFact<Var> kill) {
+        stmt.getDef().ifPresent(def -> {
+            if (def instanceof Var var) {
+                kill.add(var);
+            }
+        });
     }
 }
@@ -0,0 +1,160 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Result of live variable analysis, which is computed variable by
+ * variable instead of solving data-flow equations over all variables.
+ * <p>
+ * For each variable, the analysis walks backward from the uses of the
+ * variable along the predecessors in CFG, until it reaches the definitions
+ * of the variable. Only the statements where a variable is live hold
+ * that variable, thus the memory scales with the total length of live
+ * ranges, instead of the number of statements times the number of
+ * variables. The live variables of a statement are turned into
+ * a {@link SetFact} on demand when the fact is queried.
+ */
+class SparseLiveVarResult implements NodeResult<Stmt, SetFact<Var>> {
+
+    private static final Var[] EMPTY = new Var[0];
+
+    private final LiveVariableAnalysis analysis;
+
+    private final CFG<Stmt> cfg;
+
+    /**
+     * Variables live at the entry of each statement, indexed by
+     * {@link Stmt#getIndex()}.
+     */
+    private final Var[][] liveIns;
+
+    /**
+     * Variables live at the exit of each statement, indexed by
+     * {@link Stmt#getIndex()}.
+     */
+    private final Var[][] liveOuts;
+
+    SparseLiveVarResult(LiveVariableAnalysis analysis, CFG<Stmt> cfg) {
+        this.analysis = analysis;
+        this.cfg = cfg;
+        IR ir = cfg.getIR();
+        // the entry and exit of CFG are indexed right after the statements
+        int size = ir.getStmts().size() + 2;
+        List<List<Stmt>> usesOf = new ArrayList<>(ir.getVars().size());
+        ir.getVars().forEach(var -> usesOf.add(new ArrayList<>()));
+        for (Stmt stmt : ir) {
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var) {
+                    usesOf.get(var.getIndex()).add(stmt);
+                }
+            }
+        }
+        List<List<Var>> ins = newLists(size);
+        List<List<Var>> outs = newLists(size);
+        Deque<Stmt> workList = new ArrayDeque<>();
+        for (Var var : ir.getVars()) {
+            // variables are processed one by one, thus var has been
+            // added to a statement iff it is the last variable of the list
+            for (Stmt use : usesOf.get(var.getIndex())) {
+                if (addIfAbsent(ins.get(use.getIndex()), var)) {
+                    workList.push(use);
+                }
+            }
+            while (!workList.isEmpty()) {
+                Stmt stmt = workList.pop();
+                for (Stmt pred : cfg.getPredsOf(stmt)) {
+                    if (addIfAbsent(outs.get(pred.getIndex()), var) &&
+                            !isDefinedBy(var, pred) &&
+                            addIfAbsent(ins.get(pred.getIndex()), var)) {
+                        workList.push(pred);
+                    }
+                }
+            }
+        }
+        liveIns = toArrays(ins);
+        liveOuts = toArrays(outs);
+    }
+
+    private static List<List<Var>> newLists(int size) {
+        List<List<Var>> lists = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            lists.add(new ArrayList<>());
+        }
+        return lists;
+    }
+
+    private static boolean addIfAbsent(List<Var> vars, Var var) {
+        if (!vars.isEmpty() && vars.get(vars.size() - 1) == var) {
+            return false;
+        }
+        vars.add(var);
+        return true;
+    }
+
+    private static boolean isDefinedBy(Var var, Stmt stmt) {
+        return stmt.getDef().orElse(null) == var;
+    }
+
+    private static Var[][] toArrays(List<List<Var>> lists) {
+        Var[][] arrays = new Var[lists.size()][];
+        for (int i = 0; i < arrays.length; ++i) {
+            arrays[i] = lists.get(i).toArray(EMPTY);
+        }
+        return arrays;
+    }
+
+    @Override
+    public SetFact<Var> getInFact(Stmt stmt) {
+        return toFact(liveIns, stmt);
+    }
+
+    @Override
+    public SetFact<Var> getOutFact(Stmt stmt) {
+        return toFact(liveOuts, stmt);
+    }
+
+    private SetFact<Var> toFact(Var[][] liveVars, Stmt stmt) {
+        int index = stmt.getIndex();
+        if (index >= liveVars.length) {
+            return null;
+        }
+        SetFact<Var> fact = analysis.newInitialFact(cfg);
+        for (Var var : liveVars[index]) {
+            fact.add(var);
+        }
+        return fact;
+    }
+}
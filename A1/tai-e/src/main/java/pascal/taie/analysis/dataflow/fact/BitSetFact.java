@@ -0,0 +1,297 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Streams;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Represents set-like data-flow facts as bit vectors.
+ * <p>
+ * All facts of the same method share a universe, i.e., the list of all
+ * possible elements, and each element is represented by the bit at
+ * its index ({@link Indexable#getIndex()}) in the universe, so that
+ * set operations are performed word by word over {@code long[]}.
+ * Typically, the universe is the variables of a method, see
+ * {@link pascal.taie.ir.IR#getVars()}.
+ * <p>
+ * The words of a fact are a range of a {@code long[]}, which is either
+ * owned by the fact, or a slice of an array shared by several facts.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFact<E extends Indexable> extends SetFact<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    /**
+     * All possible elements of this fact, the i-th element has index i.
+     */
+    private final List<E> universe;
+
+    private final long[] words;
+
+    /**
+     * Index of the first word of this fact in {@link #words}.
+     */
+    private final int offset;
+
+    /**
+     * Number of words of this fact.
+     */
+    private final int length;
+
+    public BitSetFact(List<E> universe) {
+        this(universe, new long[wordsFor(universe.size())]);
+    }
+
+    private BitSetFact(List<E> universe, long[] words) {
+        this(universe, words, 0, words.length);
+    }
+
+    BitSetFact(List<E> universe, long[] words, int offset, int length) {
+        // elements are kept in words, and the set of super class is unused
+        super(Collections.emptySet());
+        this.universe = universe;
+        this.words = words;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @return the number of words for a universe of given size.
+     */
+    static int wordsFor(int universeSize) {
+        return wordIndex(universeSize - 1) + 1;
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    @Override
+    public boolean contains(E e) {
+        int index = e.getIndex();
+        return index < universe.size() &&
+                (words[offset + wordIndex(index)] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = e.getIndex();
+        if (index >= universe.size()) {
+            // the bits beyond the universe are reserved to be clear
+            throw new IllegalArgumentException(
+                    e + " (index " + index + ") is out of the universe of size " +
+                            universe.size());
+        }
+        int wordIndex = offset + wordIndex(index);
+        long oldWord = words[wordIndex];
+        words[wordIndex] = oldWord | (1L << index);
+        return words[wordIndex] != oldWord;
+    }
+
+    @Override
+    public boolean remove(E e) {
+        int index = e.getIndex();
+        if (index >= universe.size()) {
+            return false;
+        }
+        int wordIndex = offset + wordIndex(index);
+        long oldWord = words[wordIndex];
+        words[wordIndex] = oldWord & ~(1L << index);
+        return words[wordIndex] != oldWord;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<E> filter) {
+        boolean changed = false;
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            if (filter.test(universe.get(i))) {
+                words[offset + wordIndex(i)] &= ~(1L << i);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean union(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            boolean changed = false;
+            for (int i = offset, j = that.offset; i < offset + length; ++i, ++j) {
+                long oldWord = words[i];
+                words[i] = oldWord | that.words[j];
+                changed |= words[i] != oldWord;
+            }
+            return changed;
+        } else {
+            boolean changed = false;
+            for (E e : (Iterable<E>) other.stream()::iterator) {
+                changed |= add(e);
+            }
+            return changed;
+        }
+    }
+
+    @Override
+    public boolean unionDifference(SetFact<E> other, SetFact<E> excluded) {
+        if (other instanceof BitSetFact<E> that &&
+                excluded instanceof BitSetFact<E> ex) {
+            boolean changed = false;
+            for (int i = 0; i < length; ++i) {
+                long oldWord = words[offset + i];
+                long newWord = oldWord |
+                        (that.words[that.offset + i] & ~ex.words[ex.offset + i]);
+                words[offset + i] = newWord;
+                changed |= newWord != oldWord;
+            }
+            return changed;
+        } else {
+            boolean changed = false;
+            for (E e : (Iterable<E>) other.stream()::iterator) {
+                if (!excluded.contains(e)) {
+                    changed |= add(e);
+                }
+            }
+            return changed;
+        }
+    }
+
+    @Override
+    public boolean intersect(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            boolean changed = false;
+            for (int i = offset, j = that.offset; i < offset + length; ++i, ++j) {
+                long oldWord = words[i];
+                words[i] = oldWord & that.words[j];
+                changed |= words[i] != oldWord;
+            }
+            return changed;
+        } else {
+            return removeIf(e -> !other.contains(e));
+        }
+    }
+
+    @Override
+    public void set(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            System.arraycopy(that.words, that.offset, words, offset, length);
+        } else {
+            clear();
+            union(other);
+        }
+    }
+
+    @Override
+    public BitSetFact<E> copy() {
+        return new BitSetFact<>(universe,
+                Arrays.copyOfRange(words, offset, offset + length));
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, offset, offset + length, 0L);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (int i = offset; i < offset + length; ++i) {
+            if (words[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Stream<E> stream() {
+        return IntStream.iterate(nextSetBit(0), i -> i >= 0, i -> nextSetBit(i + 1))
+                .mapToObj(universe::get);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            size += Long.bitCount(words[i]);
+        }
+        return size;
+    }
+
+    /**
+     * @return the index of the first bit that is set to true
+     * on or after the given index, or -1 if there is no such bit.
+     */
+    private int nextSetBit(int fromIndex) {
+        int wordIndex = wordIndex(fromIndex);
+        if (wordIndex >= length) {
+            return -1;
+        }
+        long word = words[offset + wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << ADDRESS_BITS_PER_WORD) +
+                        Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == length) {
+                return -1;
+            }
+            word = words[offset + wordIndex];
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BitSetFact<?> that)) {
+            return false;
+        }
+        return Arrays.equals(words, offset, offset + length,
+                that.words, that.offset, that.offset + that.length);
+    }
+
+    @Override
+    public int hashCode() {
+        // same as Arrays.hashCode() on the words of this fact
+        int hash = 1;
+        for (int i = offset; i < offset + length; ++i) {
+            hash = 31 * hash + Long.hashCode(words[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Streams.toString(stream());
+    }
+}
@@ -89,7 +89,23 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean union(SetFact<E> other) {
-        return set.addAll(other.set);
+        return set.addAll(elementsOf(other));
+    }
+
+    /**
+     * Unions the elements of other fact which are not contained in
+     * excluded fact into this fact, i.e., this = this U (other - excluded).
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean unionDifference(SetFact<E> other, SetFact<E> excluded) {
+        boolean changed = false;
+        for (E e : elementsOf(other)) {
+            if (!excluded.contains(e)) {
+                changed |= set.add(e);
+            }
+        }
+        return changed;
     }
 
     /**
@@ -107,7 +123,7 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean intersect(SetFact<E> other) {
-        return set.retainAll(other.set);
+        return set.removeIf(e -> !other.contains(e));
     }
 
     /**
@@ -153,15 +169,24 @@ public class SetFact<E> {
         return set.size();
     }
 
+    /**
+     * @return the elements of given fact. Subclasses, e.g., {@link BitSetFact},
+     * may keep their elements elsewhere than {@link #set}, thus their
+     * elements are obtained via {@link #stream()}.
+     */
+    private static <E> Collection<E> elementsOf(SetFact<E> fact) {
+        return fact.getClass() == SetFact.class ? fact.set : fact.stream().toList();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
             return true;
         }
-        if (!(o instanceof SetFact<?> that)) {
+        if (o == null || getClass() != o.getClass()) {
             return false;
         }
-        return set.equals(that.set);
+        return set.equals(((SetFact<?>) o).set);
     }
 
     @Override
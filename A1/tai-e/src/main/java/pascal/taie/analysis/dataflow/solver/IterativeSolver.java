@@ -34,7 +34,23 @@ class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        throw new UnsupportedOperationException();
+        var change = true;
+        while (change) {
+            change = false;
+            countIteration();
+            for (var node : cfg) {
+                if (cfg.isEntry(node)) {
+                    continue;
+                }
+                var inFact = result.getInFact(node);
+                for (var predecessor : cfg.getPredsOf(node)) {
+                    analysis.meetInto(result.getOutFact(predecessor), inFact);
+                }
+                if (analysis.transferNode(node, inFact, result.getOutFact(node))) {
+                    change = true;
+                }
+            }
+        }
     }
 
     @Override
@@ -44,6 +60,7 @@ class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
         var change = true;
         while (change) {
             change = false;
+            countIteration();
             for (var node : cfg) {
                 if (cfg.isExit(node)) {
                     continue;
@@ -24,7 +24,18 @@ package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -33,10 +44,17 @@ import pascal.taie.analysis.graph.cfg.CFG;
  * @param <Node> type of CFG nodes
  * @param <Fact> type of data-flow facts
  */
-public abstract class Solver<Node, Fact> {
+public abstract class Solver<Node, Fact> implements DataflowSolver<Node, Fact> {
 
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Statistics of the solving, which is null if the solver
+     * is not instrumented, see {@link InstrumentedSolver}.
+     */
+    @Nullable
+    SolverStats stats;
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
         this.analysis = analysis;
     }
@@ -50,24 +68,139 @@ public abstract class Solver<Node, Fact> {
     }
 
     /**
-     * Starts this solver on the given CFG.
+     * Static factory method to create a new solver of given kind.
+     *
+     * @param kind "iterative", "worklist" or "wto" (see {@link WTOSolver}),
+     *             if it is null, the default solver is returned.
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind) {
+        if (kind == null) {
+            return makeSolver(analysis);
+        }
+        return switch (kind) {
+            case "iterative" -> new IterativeSolver<>(analysis);
+            case "worklist" -> new WorkListSolver<>(analysis);
+            case "wto" -> new WTOSolver<>(analysis);
+            default -> throw new ConfigException("Unknown solver: " + kind);
+        };
+    }
+
+    /**
+     * Static factory method to create a new solver whose results only
+     * store the facts at the boundaries of basic blocks, see {@link BlockSolver}.
+     *
+     * @param kind          kind of the underlying solver,
+     *                      see {@link #makeSolver(DataflowAnalysis, String)}.
+     * @param solveOnBlocks whether to solve the analysis on basic blocks
+     *                      instead of statements.
+     */
+    public static <Fact> DataflowSolver<Stmt, Fact> makeBlockSolver(
+            DataflowAnalysis<Stmt, Fact> analysis, @Nullable String kind,
+            boolean solveOnBlocks) {
+        return new BlockSolver<>(analysis, kind, solveOnBlocks);
+    }
+
+    /**
+     * Static factory method to create a new solver which records the
+     * statistics of solving each method, see {@link SolverStats}.
      *
-     * @param cfg control-flow graph where the analysis is performed on
-     * @return the analysis result
+     * @param analysisId ID of the analysis, which names the report
+     * @param factory    creates the solver that actually solves the analysis
      */
+    public static <Node, Fact> DataflowSolver<Node, Fact> makeInstrumentedSolver(
+            DataflowAnalysis<Node, Fact> analysis, String analysisId,
+            Function<DataflowAnalysis<Node, Fact>, DataflowSolver<Node, Fact>> factory) {
+        return new InstrumentedSolver<>(analysis, analysisId, factory);
+    }
+
+    @Override
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
         DataflowResult<Node, Fact> result = initialize(cfg);
         doSolve(cfg, result);
         return result;
     }
 
+    /**
+     * Re-solves the analysis on given CFG incrementally, starting from
+     * a result previously computed by this solver for the same CFG.
+     * <p>
+     * The nodes reachable from the changed nodes along the direction of
+     * the analysis are the only nodes whose facts may be affected by the
+     * changes. Their facts are reset to the initial facts, and the solving
+     * starts from them only. The facts of the other nodes do not depend on
+     * the changed nodes, thus the re-solved result is the same fixed point
+     * as the one computed by {@link #solve(CFG)}.
+     *
+     * @param cfg     control-flow graph where the analysis is performed on
+     * @param result  the previous result returned by {@link #solve(CFG)} of
+     *                this solver, which is updated in place. The results
+     *                of other {@link DataflowSolver}s may only be
+     *                {@link pascal.taie.analysis.dataflow.fact.NodeResult}s,
+     *                whose facts cannot be reset, and are thus not accepted
+     * @param changed the nodes whose transfer functions changed, including
+     *                the entry (exit for backward analyses) if the boundary
+     *                fact changed
+     * @return the re-solved result
+     */
+    public DataflowResult<Node, Fact> solve(CFG<Node> cfg,
+            DataflowResult<Node, Fact> result, Collection<Node> changed) {
+        Set<Node> affected = getAffectedNodes(cfg, changed);
+        if (analysis.isForward()) {
+            for (Node node : affected) {
+                if (cfg.isEntry(node)) {
+                    result.setOutFact(node, analysis.newBoundaryFact(cfg));
+                } else {
+                    result.setInFact(node, analysis.newInitialFact(cfg));
+                    result.setOutFact(node, analysis.newInitialFact(cfg));
+                }
+            }
+            doSolveForward(cfg, result, affected);
+        } else {
+            for (Node node : affected) {
+                if (cfg.isExit(node)) {
+                    result.setInFact(node, analysis.newBoundaryFact(cfg));
+                } else {
+                    result.setOutFact(node, analysis.newInitialFact(cfg));
+                    result.setInFact(node, analysis.newInitialFact(cfg));
+                }
+            }
+            doSolveBackward(cfg, result, affected);
+        }
+        return result;
+    }
+
+    /**
+     * @return the nodes reachable from given nodes along the direction
+     * of the analysis, including the given nodes.
+     */
+    private Set<Node> getAffectedNodes(CFG<Node> cfg, Collection<Node> changed) {
+        Set<Node> affected = Sets.newSet();
+        Deque<Node> stack = new ArrayDeque<>();
+        for (Node node : changed) {
+            if (affected.add(node)) {
+                stack.push(node);
+            }
+        }
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            for (Node next : analysis.isForward() ?
+                    cfg.getSuccsOf(node) : cfg.getPredsOf(node)) {
+                if (affected.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        return affected;
+    }
+
     /**
      * Creates and initializes a new data-flow result for given CFG.
      *
      * @return the initialized data-flow result
      */
     private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        DataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -76,8 +209,29 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
+    /**
+     * Creates an empty data-flow result for given CFG. For CFGs of
+     * statements, the facts are kept in arrays indexed by
+     * {@link Stmt#getIndex()}, which avoids hashing the nodes.
+     */
+    private static <Node, Fact> DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt) {
+            // the entry and exit of CFG are indexed right after the statements
+            return new IndexedDataflowResult<>(node -> ((Stmt) node).getIndex(),
+                    cfg.getIR().getStmts().size() + 2);
+        }
+        return new DataflowResult<>();
+    }
+
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        throw new UnsupportedOperationException();
+        for (Node node : cfg) {
+            if (cfg.isEntry(node)) {
+                result.setOutFact(node, analysis.newBoundaryFact(cfg));
+            } else {
+                result.setInFact(node, analysis.newInitialFact(cfg));
+                result.setOutFact(node, analysis.newInitialFact(cfg));
+            }
+        }
     }
 
     protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
@@ -86,8 +240,8 @@ public abstract class Solver<Node, Fact> {
             if (cfg.isExit(node)) {
                 result.setInFact(node, analysis.newBoundaryFact(cfg));
             } else {
-                result.setOutFact(node, analysis.newInitialFact());
-                result.setInFact(node, analysis.newInitialFact());
+                result.setOutFact(node, analysis.newInitialFact(cfg));
+                result.setInFact(node, analysis.newInitialFact(cfg));
             }
         }
     }
@@ -103,7 +257,36 @@ public abstract class Solver<Node, Fact> {
         }
     }
 
+    /**
+     * Counts an iteration, i.e., a work-list pop or a sweep over the CFG,
+     * if this solver is instrumented.
+     */
+    protected final void countIteration() {
+        if (stats != null) {
+            stats.countIteration();
+        }
+    }
+
     protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
 
     protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+
+    /**
+     * Solves the data-flow problem for given CFG, where only the facts of
+     * given nodes may be unstable, and the facts of other nodes are
+     * already at the fixed point. By default, all nodes are solved.
+     */
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                  Collection<Node> nodes) {
+        doSolveForward(cfg, result);
+    }
+
+    /**
+     * Backward counterpart of
+     * {@link #doSolveForward(CFG, DataflowResult, Collection)}.
+     */
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                   Collection<Node> nodes) {
+        doSolveBackward(cfg, result);
+    }
 }
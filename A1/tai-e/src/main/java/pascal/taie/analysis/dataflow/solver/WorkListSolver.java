@@ -0,0 +1,112 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Work-list solver which schedules nodes in reverse postorder of the CFG
+ * (of the reversed CFG for backward analyses), see {@link WorkList},
+ * and only re-enqueues the neighbors of the nodes whose facts changed.
+ * When a node is processed, only the facts of the neighbors that changed
+ * since its last processing are met, see {@link DirtyEdges}.
+ * When re-solving incrementally, the work list is seeded with
+ * the affected nodes only.
+ */
+class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    WorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        doSolveForward(cfg, result, cfg.getNodes());
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                  Collection<Node> nodes) {
+        WorkList<Node> workList = new WorkList<>(cfg, List.of(cfg.getEntry()), true);
+        DirtyEdges<Node, Node> changedPreds = new DirtyEdges<>();
+        for (Node node : nodes) {
+            if (!cfg.isEntry(node)) {
+                workList.add(node);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            countIteration();
+            Fact in = result.getInFact(node);
+            for (Node pred : changedPreds.take(node, cfg.getPredsOf(node))) {
+                analysis.meetInto(result.getOutFact(pred), in);
+            }
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    if (!cfg.isEntry(succ)) {
+                        workList.add(succ);
+                        changedPreds.mark(succ, node);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        doSolveBackward(cfg, result, cfg.getNodes());
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                   Collection<Node> nodes) {
+        WorkList<Node> workList = new WorkList<>(cfg, List.of(cfg.getExit()), false);
+        DirtyEdges<Node, Node> changedSuccs = new DirtyEdges<>();
+        for (Node node : nodes) {
+            if (!cfg.isExit(node)) {
+                workList.add(node);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            countIteration();
+            Fact out = result.getOutFact(node);
+            for (Node succ : changedSuccs.take(node, cfg.getSuccsOf(node))) {
+                analysis.meetInto(result.getInFact(succ), out);
+            }
+            if (analysis.transferNode(node, result.getInFact(node), out)) {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    if (!cfg.isExit(pred)) {
+                        workList.add(pred);
+                        changedSuccs.mark(pred, node);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A view of a statement-level {@link CFG} in which straight-line runs of
+ * statements are collapsed into {@link BasicBlock}s.
+ * <p>
+ * The entry and exit of the statement CFG form single-statement blocks,
+ * which are the entry and exit of this CFG. In addition, the client may
+ * require some statement edges to separate blocks (e.g., the edges on
+ * which a data-flow analysis performs transfer), so that every edge
+ * inside a block is an ordinary edge to the next statement.
+ */
+public class BlockCFG implements CFG<BasicBlock> {
+
+    private final CFG<Stmt> cfg;
+
+    private final Predicate<Edge<Stmt>> isBoundary;
+
+    /**
+     * Block of each statement, indexed by {@link Stmt#getIndex()}.
+     */
+    private final BasicBlock[] blockOf;
+
+    /**
+     * Position of each statement in its block, indexed by {@link Stmt#getIndex()}.
+     */
+    private final int[] positionOf;
+
+    private final List<BasicBlock> blocks = new ArrayList<>();
+
+    private final Set<BasicBlock> nodes;
+
+    private final List<Set<BasicBlock>> preds = new ArrayList<>();
+
+    private final List<Set<BasicBlock>> succs = new ArrayList<>();
+
+    private final List<Set<Edge<BasicBlock>>> inEdges = new ArrayList<>();
+
+    private final List<Set<Edge<BasicBlock>>> outEdges = new ArrayList<>();
+
+    /**
+     * @param cfg        the statement CFG
+     * @param isBoundary the statement edges which must separate blocks
+     */
+    public BlockCFG(CFG<Stmt> cfg, Predicate<Edge<Stmt>> isBoundary) {
+        this.cfg = cfg;
+        this.isBoundary = isBoundary;
+        int size = 0;
+        for (Stmt stmt : cfg) {
+            size = Math.max(size, stmt.getIndex() + 1);
+        }
+        blockOf = new BasicBlock[size];
+        positionOf = new int[size];
+        for (Stmt stmt : cfg) {
+            if (isLeader(stmt)) {
+                buildBlock(stmt);
+            }
+        }
+        // statements on cycles which cannot be entered from
+        // other statements have no leader
+        for (Stmt stmt : cfg) {
+            if (blockOf[stmt.getIndex()] == null) {
+                buildBlock(stmt);
+            }
+        }
+        for (BasicBlock block : blocks) {
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(block.getLastStmt())) {
+                BasicBlock target = getBlockOf(edge.getTarget());
+                BlockEdge blockEdge = new BlockEdge(edge, block, target);
+                outEdges.get(block.getIndex()).add(blockEdge);
+                inEdges.get(target.getIndex()).add(blockEdge);
+                succs.get(block.getIndex()).add(target);
+                preds.get(target.getIndex()).add(block);
+            }
+        }
+        nodes = Collections.unmodifiableSet(new LinkedHashSet<>(blocks));
+    }
+
+    /**
+     * @return true if control can flow from given statement only to
+     * the next statement in the same block.
+     */
+    private boolean fallsThrough(Stmt stmt) {
+        if (cfg.isEntry(stmt) || cfg.isExit(stmt) ||
+                cfg.getOutDegreeOf(stmt) != 1) {
+            return false;
+        }
+        Edge<Stmt> edge = cfg.getOutEdgesOf(stmt).iterator().next();
+        return !cfg.isExit(edge.getTarget()) && !isBoundary.test(edge);
+    }
+
+    private boolean isLeader(Stmt stmt) {
+        if (cfg.isEntry(stmt) || cfg.isExit(stmt) ||
+                cfg.getInDegreeOf(stmt) != 1) {
+            return true;
+        }
+        return !fallsThrough(cfg.getPredsOf(stmt).iterator().next());
+    }
+
+    private void buildBlock(Stmt leader) {
+        List<Stmt> stmts = new ArrayList<>();
+        Stmt stmt = leader;
+        while (true) {
+            stmts.add(stmt);
+            if (!fallsThrough(stmt)) {
+                break;
+            }
+            Stmt next = cfg.getSuccsOf(stmt).iterator().next();
+            if (next == leader || isLeader(next)) {
+                break;
+            }
+            stmt = next;
+        }
+        BasicBlock block = new BasicBlock(blocks.size(), stmts);
+        blocks.add(block);
+        preds.add(Sets.newHybridSet());
+        succs.add(Sets.newHybridSet());
+        inEdges.add(Sets.newHybridSet());
+        outEdges.add(Sets.newHybridSet());
+        for (int i = 0; i < stmts.size(); ++i) {
+            blockOf[stmts.get(i).getIndex()] = block;
+            positionOf[stmts.get(i).getIndex()] = i;
+        }
+    }
+
+    /**
+     * @return the block which contains given statement.
+     */
+    public BasicBlock getBlockOf(Stmt stmt) {
+        return blockOf[stmt.getIndex()];
+    }
+
+    /**
+     * @return the position of given statement in its block.
+     */
+    public int getPositionOf(Stmt stmt) {
+        return positionOf[stmt.getIndex()];
+    }
+
+    /**
+     * @return the statement CFG which this CFG is built on.
+     */
+    public CFG<Stmt> getStmtCFG() {
+        return cfg;
+    }
+
+    @Override
+    public IR getIR() {
+        return cfg.getIR();
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return cfg.getMethod();
+    }
+
+    @Override
+    public BasicBlock getEntry() {
+        return getBlockOf(cfg.getEntry());
+    }
+
+    @Override
+    public BasicBlock getExit() {
+        return getBlockOf(cfg.getExit());
+    }
+
+    @Override
+    public boolean isEntry(BasicBlock block) {
+        return block == getEntry();
+    }
+
+    @Override
+    public boolean isExit(BasicBlock block) {
+        return block == getExit();
+    }
+
+    @Override
+    public boolean hasNode(BasicBlock block) {
+        return block.getIndex() < blocks.size() &&
+                blocks.get(block.getIndex()) == block;
+    }
+
+    @Override
+    public boolean hasEdge(BasicBlock source, BasicBlock target) {
+        return getSuccsOf(source).contains(target);
+    }
+
+    @Override
+    public Set<BasicBlock> getPredsOf(BasicBlock block) {
+        return Collections.unmodifiableSet(preds.get(block.getIndex()));
+    }
+
+    @Override
+    public Set<BasicBlock> getSuccsOf(BasicBlock block) {
+        return Collections.unmodifiableSet(succs.get(block.getIndex()));
+    }
+
+    @Override
+    public Set<Edge<BasicBlock>> getInEdgesOf(BasicBlock block) {
+        return Collections.unmodifiableSet(inEdges.get(block.getIndex()));
+    }
+
+    @Override
+    public Set<Edge<BasicBlock>> getOutEdgesOf(BasicBlock block) {
+        return Collections.unmodifiableSet(outEdges.get(block.getIndex()));
+    }
+
+    @Override
+    public Set<BasicBlock> getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return blocks.size();
+    }
+}
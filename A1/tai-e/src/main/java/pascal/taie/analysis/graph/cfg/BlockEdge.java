@@ -0,0 +1,77 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.ClassType;
+
+import java.util.Set;
+
+/**
+ * Represents the edges of {@link BlockCFG}. Each block edge corresponds to
+ * an edge from the last statement of its source block to the first statement
+ * of its target block, and has the same kind as the statement edge.
+ */
+public class BlockEdge extends Edge<BasicBlock> {
+
+    private final Edge<Stmt> stmtEdge;
+
+    BlockEdge(Edge<Stmt> stmtEdge, BasicBlock source, BasicBlock target) {
+        super(stmtEdge.getKind(), source, target);
+        this.stmtEdge = stmtEdge;
+    }
+
+    /**
+     * @return the statement edge which this block edge corresponds to.
+     */
+    public Edge<Stmt> getStmtEdge() {
+        return stmtEdge;
+    }
+
+    @Override
+    public int getCaseValue() {
+        return stmtEdge.getCaseValue();
+    }
+
+    @Override
+    public Set<ClassType> getExceptions() {
+        return stmtEdge.getExceptions();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BlockEdge edge = (BlockEdge) o;
+        return stmtEdge.equals(edge.stmtEdge);
+    }
+
+    @Override
+    public int hashCode() {
+        return stmtEdge.hashCode();
+    }
+}
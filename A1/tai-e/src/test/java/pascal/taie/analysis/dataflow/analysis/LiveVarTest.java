@@ -28,8 +28,12 @@ import pascal.taie.analysis.Tests;
 public class LiveVarTest {
 
     void testLV(String inputClass) {
+        testLV(inputClass, "strongly:false");
+    }
+
+    void testLV(String inputClass, String opts) {
         Tests.test(inputClass, "src/test/resources/dataflow/livevar",
-                LiveVariableAnalysis.ID, "strongly:false");
+                LiveVariableAnalysis.ID, opts);
     }
 
     @Test
@@ -61,4 +65,64 @@ public class LiveVarTest {
     public void Reference() {
         testLV("Reference");
     }
+
+    @Test
+    public void FibonacciBitSet() {
+        testLV("Fibonacci", "strongly:false;fact:bitset");
+    }
+
+    @Test
+    public void ReferenceBitSet() {
+        testLV("Reference", "strongly:false;fact:bitset");
+    }
+
+    @Test
+    public void FibonacciWorkList() {
+        testLV("Fibonacci", "strongly:false;solver:worklist");
+    }
+
+    @Test
+    public void ReferenceWorkList() {
+        testLV("Reference", "strongly:false;solver:worklist;fact:bitset");
+    }
+
+    @Test
+    public void FibonacciWTO() {
+        testLV("Fibonacci", "strongly:false;solver:wto");
+    }
+
+    @Test
+    public void ReferenceWTO() {
+        testLV("Reference", "strongly:false;solver:wto;fact:bitset");
+    }
+
+    @Test
+    public void FibonacciSparse() {
+        testLV("Fibonacci", "strongly:false;mode:sparse");
+    }
+
+    @Test
+    public void ReferenceSparse() {
+        testLV("Reference", "strongly:false;mode:sparse;fact:bitset");
+    }
+
+    @Test
+    public void FibonacciBlock() {
+        testLV("Fibonacci", "strongly:false;granularity:block");
+    }
+
+    @Test
+    public void ReferenceBlock() {
+        testLV("Reference", "strongly:false;granularity:block;solver:worklist;fact:bitset");
+    }
+
+    @Test
+    public void FibonacciBoundary() {
+        testLV("Fibonacci", "strongly:false;storage:boundary");
+    }
+
+    @Test
+    public void FibonacciStats() {
+        testLV("Fibonacci", "strongly:false;stats:true;solver:worklist");
+    }
 }
@@ -0,0 +1,670 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link CPFact} backed by a persistent hash array mapped trie
+ * (in the compressed CHAMP layout), keyed by {@link Var#getIndex()}.
+ * <p>
+ * Facts share the nodes of their tries, so {@link #copy()} takes O(1),
+ * and updates only copy the path from the root to the updated node.
+ * Since the layout is canonical, i.e., equal facts have tries of
+ * the same shape, {@link #meetFrom(CPFact)}, {@link #copyFrom(MapFact)}
+ * and {@link #equals(Object)} skip the subtrees shared by the two facts.
+ * Values are packed in the same way as {@link CPFact}.
+ */
+public class PersistentCPFact extends CPFact {
+
+    private static final int BITS = 5;
+
+    private static final int HASH_BITS = 32;
+
+    private static final Var[] NO_KEYS = {};
+
+    private static final long[] NO_VALUES = {};
+
+    private static final Node[] NO_NODES = {};
+
+    private static final Node EMPTY = new BitmapNode(0, 0,
+            NO_KEYS, NO_VALUES, NO_NODES);
+
+    /**
+     * Root of the trie. The number of mappings is not kept, so that
+     * subtrees can be shared without counting their mappings.
+     */
+    private Node root;
+
+    public PersistentCPFact() {
+        this(EMPTY);
+    }
+
+    private PersistentCPFact(Node root) {
+        // mappings are kept in the trie, and the arrays of super class are unused
+        super(null, null, 0);
+        this.root = root;
+    }
+
+    private static int hash(Var var) {
+        return var.getIndex();
+    }
+
+    @Override
+    public Value get(Var key) {
+        return unpack(root.find(key, hash(key), 0));
+    }
+
+    @Override
+    public boolean update(Var key, Value value) {
+        if (value.isUndef()) {
+            return remove(key) != null;
+        } else {
+            return put(key, pack(value));
+        }
+    }
+
+    private boolean put(Var key, long value) {
+        Node oldRoot = root;
+        root = root.put(key, hash(key), value, 0, false);
+        return root != oldRoot;
+    }
+
+    @Override
+    public Value remove(Var key) {
+        int hash = hash(key);
+        long oldValue = root.find(key, hash, 0);
+        if (oldValue == 0) {
+            return null;
+        }
+        root = root.remove(key, hash, 0);
+        return unpack(oldValue);
+    }
+
+    private boolean isEmpty() {
+        return root.isEmpty();
+    }
+
+    @Override
+    public boolean meetFrom(CPFact fact) {
+        Node oldRoot = root;
+        if (fact instanceof PersistentCPFact that) {
+            if (isEmpty()) {
+                // UNDEF is the identity of meet
+                root = that.root;
+                return !isEmpty();
+            }
+            root = merge(root, that.root, 0, true);
+        } else {
+            fact.forEach((key, value) ->
+                    root = root.put(key, hash(key), pack(value), 0, true));
+        }
+        return root != oldRoot;
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        Node oldRoot = root;
+        if (fact instanceof PersistentCPFact that) {
+            if (isEmpty()) {
+                root = that.root;
+                return !isEmpty();
+            }
+            root = merge(root, that.root, 0, false);
+        } else {
+            fact.forEach((key, value) -> put(key, pack(value)));
+        }
+        return root != oldRoot;
+    }
+
+    /**
+     * Merges the mappings of {@code from} into {@code to}. If {@code meet}
+     * is true, the values of the same variable are met, otherwise the
+     * values in {@code from} replace the ones in {@code to}.
+     * The subtrees shared by the two tries are skipped.
+     *
+     * @return the merged node, or {@code to} if it is unchanged.
+     */
+    private Node merge(Node to, Node from, int shift, boolean meet) {
+        if (to == from) {
+            return to;
+        }
+        if (from instanceof BitmapNode node) {
+            Node result = to;
+            for (int i = 0; i < node.keys.length; ++i) {
+                result = mergeEntry(result, node.keys[i], node.values[i], shift, meet);
+            }
+            for (int i = 0; i < node.nodes.length; ++i) {
+                Node sub = node.nodes[i];
+                int bit = nthBit(node.nodeMap, i);
+                if (result instanceof BitmapNode r && (r.nodeMap & bit) != 0) {
+                    Node oldSub = r.nodeAt(bit);
+                    Node newSub = merge(oldSub, sub, shift + BITS, meet);
+                    if (newSub != oldSub) {
+                        result = r.withNode(bit, newSub);
+                    }
+                } else if (result instanceof BitmapNode r && (r.dataMap & bit) == 0) {
+                    // the subtree is absent in the result, thus is shared
+                    result = r.withNewNode(bit, sub);
+                } else if (result instanceof BitmapNode r) {
+                    // merges the only mapping of the result at the bit
+                    // into the subtree, which is shared otherwise
+                    int j = r.dataIndex(bit);
+                    Var key = r.keys[j];
+                    int hash = hash(key);
+                    Node newSub = !meet && sub.find(key, hash, shift + BITS) != 0 ? sub :
+                            sub.put(key, hash, r.values[j], shift + BITS, meet);
+                    result = r.withDataMovedToNode(bit, newSub);
+                } else {
+                    Node[] acc = { result };
+                    sub.forEach((key, value) ->
+                            acc[0] = mergeEntry(acc[0], key, value, shift, meet));
+                    result = acc[0];
+                }
+            }
+            return result;
+        } else {
+            Node[] acc = { to };
+            from.forEach((key, value) ->
+                    acc[0] = mergeEntry(acc[0], key, value, shift, meet));
+            return acc[0];
+        }
+    }
+
+    private Node mergeEntry(Node node, Var key, long value, int shift, boolean meet) {
+        return node.put(key, hash(key), value, shift, meet);
+    }
+
+    @Override
+    public PersistentCPFact copy() {
+        return new PersistentCPFact(root);
+    }
+
+    @Override
+    public void clear() {
+        root = EMPTY;
+    }
+
+    @Override
+    public Set<Var> keySet() {
+        List<Var> keys = new ArrayList<>();
+        root.forEach((key, value) -> keys.add(key));
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Var> iterator() {
+                return keys.iterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Var var && root.find(var, hash(var), 0) != 0;
+            }
+
+            @Override
+            public int size() {
+                return keys.size();
+            }
+        };
+    }
+
+    @Override
+    public Stream<Map.Entry<Var, Value>> entries() {
+        List<Map.Entry<Var, Value>> entries = new ArrayList<>();
+        root.forEach((key, value) -> entries.add(Map.entry(key, unpack(value))));
+        return entries.stream();
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        root.forEach((key, value) -> action.accept(key, unpack(value)));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof PersistentCPFact that) {
+            return root.equalTo(that.root);
+        }
+        if (o instanceof CPFact that) {
+            int[] size = { 0 };
+            boolean[] equal = { true };
+            root.forEach((key, value) -> {
+                ++size[0];
+                equal[0] &= pack(that.get(key)) == value;
+            });
+            return equal[0] && size[0] == that.keySet().size();
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = { 0 };
+        root.forEach((key, value) -> hash[0] += key.hashCode() ^ Long.hashCode(value));
+        return hash[0];
+    }
+
+    private static int positionOf(int hash, int shift) {
+        return (hash >>> shift) & ((1 << BITS) - 1);
+    }
+
+    private static int bitOf(int hash, int shift) {
+        return 1 << positionOf(hash, shift);
+    }
+
+    /**
+     * @return the lowest {@code n+1}-th set bit of given bitmap.
+     */
+    private static int nthBit(int bitmap, int n) {
+        int bits = bitmap;
+        for (int i = 0; i < n; ++i) {
+            bits &= bits - 1;
+        }
+        return Integer.lowestOneBit(bits);
+    }
+
+    private interface PackedConsumer {
+        void accept(Var key, long value);
+    }
+
+    /**
+     * Immutable node of the trie. The update operations return new nodes,
+     * or the node itself if the update does not change it.
+     */
+    private abstract static class Node {
+
+        /**
+         * @return packed value of given variable, or 0 if it is absent.
+         */
+        abstract long find(Var key, int hash, int shift);
+
+        /**
+         * Inserts or replaces a mapping in a single walk of the trie.
+         *
+         * @param meet if true, the new value of a contained variable is
+         *             the meet of its old value and given value
+         */
+        abstract Node put(Var key, int hash, long value, int shift, boolean meet);
+
+        /**
+         * Removes a variable which is contained in this node.
+         */
+        abstract Node remove(Var key, int hash, int shift);
+
+        /**
+         * @return true if this node contains only a mapping, in which case
+         * the mapping is inlined into the parent node.
+         */
+        abstract boolean isSingleton();
+
+        abstract boolean isEmpty();
+
+        abstract void forEach(PackedConsumer action);
+
+        abstract boolean equalTo(Node other);
+    }
+
+    /**
+     * Node which keeps its mappings and sub-nodes in separate arrays,
+     * indexed by the population counts of {@link #dataMap} and
+     * {@link #nodeMap} respectively.
+     */
+    private static final class BitmapNode extends Node {
+
+        private final int dataMap;
+
+        private final int nodeMap;
+
+        private final Var[] keys;
+
+        private final long[] values;
+
+        private final Node[] nodes;
+
+        private BitmapNode(int dataMap, int nodeMap,
+                           Var[] keys, long[] values, Node[] nodes) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.keys = keys;
+            this.values = values;
+            this.nodes = nodes;
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        private Node nodeAt(int bit) {
+            return nodes[nodeIndex(bit)];
+        }
+
+        @Override
+        long find(Var key, int hash, int shift) {
+            int bit = bitOf(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                return keys[i] == key ? values[i] : 0;
+            } else if ((nodeMap & bit) != 0) {
+                return nodeAt(bit).find(key, hash, shift + BITS);
+            } else {
+                return 0;
+            }
+        }
+
+        @Override
+        Node put(Var key, int hash, long value, int shift, boolean meet) {
+            int bit = bitOf(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                if (keys[i] == key) {
+                    long newValue = meet ? meet(values[i], value) : value;
+                    if (values[i] == newValue) {
+                        return this;
+                    }
+                    long[] newValues = values.clone();
+                    newValues[i] = newValue;
+                    return new BitmapNode(dataMap, nodeMap, keys, newValues, nodes);
+                }
+                // moves the existing mapping and the new one to a sub-node
+                Node sub = mergeTwo(keys[i], hash(keys[i]), values[i],
+                        key, hash, value, shift + BITS);
+                return new BitmapNode(dataMap & ~bit, nodeMap | bit,
+                        removeAt(keys, i), removeAt(values, i),
+                        insertAt(nodes, nodeIndex(bit), sub));
+            } else if ((nodeMap & bit) != 0) {
+                Node oldSub = nodeAt(bit);
+                Node newSub = oldSub.put(key, hash, value, shift + BITS, meet);
+                return newSub == oldSub ? this : withNode(bit, newSub);
+            } else {
+                int i = dataIndex(bit);
+                return new BitmapNode(dataMap | bit, nodeMap,
+                        insertAt(keys, i, key), insertAt(values, i, value), nodes);
+            }
+        }
+
+        /**
+         * @return a copy of this node where the mapping at given bit
+         * is replaced by given sub-node.
+         */
+        private Node withDataMovedToNode(int bit, Node sub) {
+            int i = dataIndex(bit);
+            return new BitmapNode(dataMap & ~bit, nodeMap | bit,
+                    removeAt(keys, i), removeAt(values, i),
+                    insertAt(nodes, nodeIndex(bit), sub));
+        }
+
+        private Node withNewNode(int bit, Node sub) {
+            return new BitmapNode(dataMap, nodeMap | bit, keys, values,
+                    insertAt(nodes, nodeIndex(bit), sub));
+        }
+
+        private Node withNode(int bit, Node sub) {
+            Node[] newNodes = nodes.clone();
+            newNodes[nodeIndex(bit)] = sub;
+            return new BitmapNode(dataMap, nodeMap, keys, values, newNodes);
+        }
+
+        @Override
+        Node remove(Var key, int hash, int shift) {
+            int bit = bitOf(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                return new BitmapNode(dataMap & ~bit, nodeMap,
+                        removeAt(keys, i), removeAt(values, i), nodes);
+            }
+            int n = nodeIndex(bit);
+            Node newSub = nodes[n].remove(key, hash, shift + BITS);
+            if (!newSub.isSingleton()) {
+                return withNode(bit, newSub);
+            }
+            // inlines the remaining mapping of the sub-node,
+            // which keeps the trie canonical
+            Var[] subKey = new Var[1];
+            long[] subValue = new long[1];
+            newSub.forEach((k, v) -> {
+                subKey[0] = k;
+                subValue[0] = v;
+            });
+            int i = dataIndex(bit);
+            return new BitmapNode(dataMap | bit, nodeMap & ~bit,
+                    insertAt(keys, i, subKey[0]), insertAt(values, i, subValue[0]),
+                    removeAt(nodes, n));
+        }
+
+        @Override
+        boolean isSingleton() {
+            return nodeMap == 0 && keys.length == 1;
+        }
+
+        @Override
+        boolean isEmpty() {
+            return dataMap == 0 && nodeMap == 0;
+        }
+
+        @Override
+        void forEach(PackedConsumer action) {
+            for (int i = 0; i < keys.length; ++i) {
+                action.accept(keys[i], values[i]);
+            }
+            for (Node node : nodes) {
+                node.forEach(action);
+            }
+        }
+
+        @Override
+        boolean equalTo(Node other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof BitmapNode that)
+                    || dataMap != that.dataMap || nodeMap != that.nodeMap) {
+                return false;
+            }
+            for (int i = 0; i < keys.length; ++i) {
+                if (keys[i] != that.keys[i] || values[i] != that.values[i]) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < nodes.length; ++i) {
+                if (!nodes[i].equalTo(that.nodes[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Node for the variables of the same hash, i.e., variables
+     * of different methods which have the same index.
+     */
+    private static final class CollisionNode extends Node {
+
+        private final Var[] keys;
+
+        private final long[] values;
+
+        private CollisionNode(Var[] keys, long[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private int indexOf(Var key) {
+            for (int i = 0; i < keys.length; ++i) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        long find(Var key, int hash, int shift) {
+            int i = indexOf(key);
+            return i >= 0 ? values[i] : 0;
+        }
+
+        @Override
+        Node put(Var key, int hash, long value, int shift, boolean meet) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return new CollisionNode(insertAt(keys, keys.length, key),
+                        insertAt(values, values.length, value));
+            }
+            long newValue = meet ? meet(values[i], value) : value;
+            if (values[i] == newValue) {
+                return this;
+            } else {
+                long[] newValues = values.clone();
+                newValues[i] = newValue;
+                return new CollisionNode(keys, newValues);
+            }
+        }
+
+        @Override
+        Node remove(Var key, int hash, int shift) {
+            int i = indexOf(key);
+            return new CollisionNode(removeAt(keys, i), removeAt(values, i));
+        }
+
+        @Override
+        boolean isSingleton() {
+            return keys.length == 1;
+        }
+
+        @Override
+        boolean isEmpty() {
+            return keys.length == 0;
+        }
+
+        @Override
+        void forEach(PackedConsumer action) {
+            for (int i = 0; i < keys.length; ++i) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+
+        @Override
+        boolean equalTo(Node other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof CollisionNode that)
+                    || keys.length != that.keys.length) {
+                return false;
+            }
+            // the order of colliding variables depends on the insertion order
+            for (int i = 0; i < keys.length; ++i) {
+                if (that.find(keys[i], 0, 0) != values[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return a node containing the two given mappings.
+     */
+    private static Node mergeTwo(Var key1, int hash1, long value1,
+                                 Var key2, int hash2, long value2, int shift) {
+        if (shift >= HASH_BITS) {
+            return new CollisionNode(new Var[]{ key1, key2 },
+                    new long[]{ value1, value2 });
+        }
+        int pos1 = positionOf(hash1, shift);
+        int pos2 = positionOf(hash2, shift);
+        if (pos1 == pos2) {
+            Node sub = mergeTwo(key1, hash1, value1, key2, hash2, value2, shift + BITS);
+            return new BitmapNode(0, 1 << pos1, NO_KEYS, NO_VALUES, new Node[]{ sub });
+        }
+        // mappings are ordered by their positions
+        int dataMap = (1 << pos1) | (1 << pos2);
+        return pos1 < pos2
+                ? new BitmapNode(dataMap, 0, new Var[]{ key1, key2 },
+                new long[]{ value1, value2 }, NO_NODES)
+                : new BitmapNode(dataMap, 0, new Var[]{ key2, key1 },
+                new long[]{ value2, value1 }, NO_NODES);
+    }
+
+    private static Var[] insertAt(Var[] array, int i, Var e) {
+        Var[] result = new Var[array.length + 1];
+        System.arraycopy(array, 0, result, 0, i);
+        result[i] = e;
+        System.arraycopy(array, i, result, i + 1, array.length - i);
+        return result;
+    }
+
+    private static long[] insertAt(long[] array, int i, long e) {
+        long[] result = new long[array.length + 1];
+        System.arraycopy(array, 0, result, 0, i);
+        result[i] = e;
+        System.arraycopy(array, i, result, i + 1, array.length - i);
+        return result;
+    }
+
+    private static Node[] insertAt(Node[] array, int i, Node e) {
+        Node[] result = new Node[array.length + 1];
+        System.arraycopy(array, 0, result, 0, i);
+        result[i] = e;
+        System.arraycopy(array, i, result, i + 1, array.length - i);
+        return result;
+    }
+
+    private static Var[] removeAt(Var[] array, int i) {
+        Var[] result = new Var[array.length - 1];
+        System.arraycopy(array, 0, result, 0, i);
+        System.arraycopy(array, i + 1, result, i, array.length - i - 1);
+        return result;
+    }
+
+    private static long[] removeAt(long[] array, int i) {
+        long[] result = new long[array.length - 1];
+        System.arraycopy(array, 0, result, 0, i);
+        System.arraycopy(array, i + 1, result, i, array.length - i - 1);
+        return result;
+    }
+
+    private static Node[] removeAt(Node[] array, int i) {
+        Node[] result = new Node[array.length - 1];
+        System.arraycopy(array, 0, result, 0, i);
+        System.arraycopy(array, i + 1, result, i, array.length - i - 1);
+        return result;
+    }
+}
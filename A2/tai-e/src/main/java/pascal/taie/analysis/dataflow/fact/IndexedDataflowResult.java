@@ -0,0 +1,94 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@link DataflowResult} which stores the data-flow facts in arrays
+ * addressed by the indexes of nodes, instead of hash maps.
+ * <p>
+ * The indexes of nodes are given by an indexer, e.g.,
+ * {@link pascal.taie.ir.stmt.Stmt#getIndex()} for the nodes of a CFG,
+ * and they are expected to be dense, i.e., close to [0, number of nodes).
+ *
+ * @param <Node> type of nodes
+ * @param <Fact> type of data-flow facts
+ */
+public class IndexedDataflowResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+    private final ToIntFunction<Node> indexer;
+
+    private Object[] inFacts;
+
+    private Object[] outFacts;
+
+    /**
+     * @param indexer  maps each node to its index
+     * @param capacity the expected number of indexes, the arrays grow
+     *                 on demand if some node has a larger index
+     */
+    public IndexedDataflowResult(ToIntFunction<Node> indexer, int capacity) {
+        this.indexer = indexer;
+        this.inFacts = new Object[capacity];
+        this.outFacts = new Object[capacity];
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        return get(inFacts, indexer.applyAsInt(node));
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        int index = indexer.applyAsInt(node);
+        ensureCapacity(index);
+        inFacts[index] = fact;
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        return get(outFacts, indexer.applyAsInt(node));
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        int index = indexer.applyAsInt(node);
+        ensureCapacity(index);
+        outFacts[index] = fact;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Fact get(Object[] facts, int index) {
+        return 0 <= index && index < facts.length ? (Fact) facts[index] : null;
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= inFacts.length) {
+            int newLength = Math.max(index + 1, inFacts.length * 2);
+            inFacts = Arrays.copyOf(inFacts, newLength);
+            outFacts = Arrays.copyOf(outFacts, newLength);
+        }
+    }
+}
@@ -26,8 +26,12 @@ import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 
-import java.util.LinkedList;
+import java.util.List;
 
+/**
+ * Work-list solver which schedules nodes in reverse postorder of the CFG,
+ * see {@link WorkList}, and only re-enqueues the neighbors of the nodes whose facts changed.
+ */
 class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
     WorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
@@ -36,25 +40,28 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
-        LinkedList<Node> list = new LinkedList<>();
+        WorkList<Node> workList = new WorkList<>(cfg, List.of(cfg.getEntry()), true);
+        DirtyEdges<Node, Node> changedPreds = new DirtyEdges<>();
         for (Node node : cfg) {
-            if (cfg.isEntry(node)) {
-                continue;
+            if (!cfg.isEntry(node)) {
+                workList.add(node);
             }
-            list.add(node);
         }
-        while (!list.isEmpty()) {
-            var node = list.pop();
-
-            for (var n : cfg.getPredsOf(node)) {
-                analysis.meetInto(result.getOutFact(n), result.getInFact(node));
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            for (Node pred : changedPreds.take(node, cfg.getPredsOf(node))) {
+                analysis.meetInto(result.getOutFact(pred), in);
             }
-            if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
-                list.addAll(cfg.getSuccsOf(node));
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    if (!cfg.isEntry(succ)) {
+                        workList.add(succ);
+                        changedPreds.mark(succ, node);
+                    }
+                }
             }
         }
-
     }
 
     @Override
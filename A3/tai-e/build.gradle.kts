@@ -1,6 +1,7 @@
 plugins {
     id("java")
     id("application")
+    id("me.champeau.jmh") version "0.6.6"
 }
 
 repositories {
@@ -23,6 +24,32 @@ tasks.compileTestJava { options.encoding = "UTF-8" }
 tasks.test {
     useJUnit()
     maxHeapSize = "4G"
+    // the scaling suite is slow, and is run by task scalingTest
+    exclude("**/ScalingTest.class")
+}
+
+val scalingTest by tasks.registering(Test::class) {
+    description = "Checks that data-flow analyses scale linearly on synthetic programs."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnit()
+    include("**/ScalingTest.class")
+    maxHeapSize = "8G"
+}
+
+// the benchmarks share the program generator of the scaling suite
+sourceSets.named("jmh") {
+    compileClasspath += sourceSets.test.get().output
+    runtimeClasspath += sourceSets.test.get().output
+}
+
+jmh {
+    jmhVersion.set("1.35")
+    // report allocation rate along with throughput
+    profilers.add("gc")
+    jvmArgs.add("-Xmx4G")
+    resultFormat.set("JSON")
 }
 
 java {
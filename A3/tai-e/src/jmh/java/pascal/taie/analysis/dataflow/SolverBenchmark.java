@@ -0,0 +1,129 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for the benchmarks of data-flow solvers, which measures
+ * the throughput of solving {@link LiveVariableAnalysis} and
+ * {@link ConstantPropagation} for the methods of a program.
+ * Each benchmark operation solves a single method, and the methods are
+ * solved in turn, thus the throughput is reported in methods per second,
+ * and the normalized allocation reported by the "gc" profiler
+ * (configured in build.gradle.kts), i.e., gc.alloc.rate.norm,
+ * is in bytes per method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class SolverBenchmark {
+
+    /**
+     * Kind of the solver, see
+     * {@link pascal.taie.analysis.dataflow.solver.Solver#makeSolver}.
+     */
+    @Param({"iterative", "worklist"})
+    public String solver;
+
+    /**
+     * IRs of the methods of the program, whose CFGs have been built.
+     */
+    private List<IR> irs;
+
+    /**
+     * Index of the method to be solved by the next operation.
+     */
+    private int next;
+
+    private LiveVariableAnalysis liveVar;
+
+    private ConstantPropagation constProp;
+
+    /**
+     * Builds the world for given program, and the CFGs of
+     * all its application methods.
+     */
+    protected void setUp(String classPath, String mainClass) {
+        Main.main(new String[]{
+                "-pp", "-cp", classPath, "-m", mainClass,
+                "-a", CFGBuilder.ID + "=exception:explicit;dump:false",
+        });
+        irs = World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(JMethod::getIR)
+                .toList();
+        liveVar = new LiveVariableAnalysis(new AnalysisConfig(
+                LiveVariableAnalysis.ID, "strongly", false, "solver", solver));
+        constProp = new ConstantPropagation(new AnalysisConfig(
+                ConstantPropagation.ID, "edge-refine", false, "solver", solver));
+    }
+
+    /**
+     * @return the IR of the method to be solved by current operation.
+     */
+    private IR nextIR() {
+        IR ir = irs.get(next);
+        next = next + 1 < irs.size() ? next + 1 : 0;
+        return ir;
+    }
+
+    @Benchmark
+    public Object liveVariableAnalysis() {
+        return liveVar.analyze(nextIR());
+    }
+
+    @Benchmark
+    public Object constantPropagation() {
+        return constProp.analyze(nextIR());
+    }
+}
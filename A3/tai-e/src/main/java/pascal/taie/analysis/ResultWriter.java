@@ -0,0 +1,132 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the results dumped by {@link ResultProcessor}.
+ * <p>
+ * The output is split into sections, e.g., the results of a method.
+ * The sections are formatted in parallel, and a single writer thread
+ * emits them in the order they are given, so that the output is
+ * deterministic. At most {@link #MAX_PENDING} sections are formatted
+ * but not yet written, thus the memory of the pending sections is
+ * bounded regardless of the size of the whole output.
+ */
+class ResultWriter {
+
+    /**
+     * Maximum number of sections that are formatted or being formatted,
+     * but not yet written.
+     */
+    private static final int MAX_PENDING = 256;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Marks the end of the sections.
+     */
+    private static final CompletableFuture<byte[]> END =
+            CompletableFuture.completedFuture(new byte[0]);
+
+    private ResultWriter() {
+    }
+
+    /**
+     * Opens a buffered output stream over the channel of given file.
+     * If the name of the file ends with ".gz", then the output
+     * is compressed in gzip format.
+     */
+    static OutputStream open(Path file) throws IOException {
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(
+                FileChannel.open(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)),
+                BUFFER_SIZE);
+        return file.toString().endsWith(".gz") ?
+                new GZIPOutputStream(out, BUFFER_SIZE) : out;
+    }
+
+    /**
+     * Formats a section for each of given items in parallel, and writes
+     * the sections to {@code out} in the order of the items.
+     * The output stream is flushed, but not closed.
+     */
+    static <T> void write(OutputStream out, Charset charset, List<T> items,
+                          Function<T, String> formatter) throws IOException {
+        BlockingQueue<CompletableFuture<byte[]>> pending =
+                new ArrayBlockingQueue<>(MAX_PENDING);
+        Throwable[] failure = new Throwable[1];
+        Thread writer = new Thread(() -> {
+            try {
+                CompletableFuture<byte[]> section;
+                while ((section = pending.take()) != END) {
+                    // after a failure, the remaining sections are
+                    // still taken so that the submitter is not blocked
+                    if (failure[0] == null) {
+                        try {
+                            out.write(section.join());
+                        } catch (Throwable e) {
+                            failure[0] = e;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                failure[0] = e;
+            }
+        }, "result-writer");
+        writer.start();
+        try {
+            for (T item : items) {
+                pending.put(CompletableFuture.supplyAsync(
+                        () -> formatter.apply(item).getBytes(charset)));
+            }
+            pending.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while writing results", e);
+        }
+        if (failure[0] instanceof IOException e) {
+            throw e;
+        } else if (failure[0] != null) {
+            throw new RuntimeException("Failed to write results", failure[0]);
+        }
+        out.flush();
+    }
+}
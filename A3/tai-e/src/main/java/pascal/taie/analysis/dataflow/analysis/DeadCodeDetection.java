@@ -25,13 +25,17 @@ package pascal.taie.analysis.dataflow.analysis;
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.SparseCPResult;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
-import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactArena;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.World;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.PlanConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.AssignStmt;
@@ -40,13 +44,78 @@ import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.SwitchStmt;
 
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    /**
+     * Options of the data-flow analyses that affect how they are solved,
+     * which are taken from the user in the fused mode.
+     */
+    private static final List<String> SOLVER_OPTIONS = List.of(
+            "solver", "granularity", "storage", "stats", "fact", "mode", "arena");
+
+    /**
+     * Analyses scheduled by this analysis itself with option "fused: true",
+     * otherwise null.
+     *
+     * @see #analyzeFused(IR, CFG)
+     */
+    private final LiveVariableAnalysis livevar;
+
+    private final ConstantPropagation constprop;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        if (getOptions().getBooleanOrDefault("fused", false)) {
+            // by default, the fused analyses are solved on basic blocks,
+            // thus only the facts at the boundaries of blocks are kept
+            // even during solving, see AbstractDataflowAnalysis.makeSolver(),
+            // and the live variables are allocated from the fact arena,
+            // which is released once they are read
+            livevar = new LiveVariableAnalysis(makeFusedConfig(
+                    LiveVariableAnalysis.ID, "fact", "bitset",
+                    "granularity", "block", "arena", true));
+            constprop = new ConstantPropagation(makeFusedConfig(
+                    ConstantPropagation.ID, "granularity", "block"));
+        } else {
+            livevar = null;
+            constprop = null;
+        }
+    }
+
+    /**
+     * @param id       ID of an analysis run by the fused mode
+     * @param defaults default options of the analysis in the fused mode
+     * @return the config of the analysis, where the solver options
+     * given by the user (e.g., "-a livevar=solver:wto") take
+     * precedence over the defaults.
+     */
+    private static AnalysisConfig makeFusedConfig(String id, Object... defaults) {
+        Map<String, Object> options = new LinkedHashMap<>();
+        for (int i = 0; i < defaults.length; i += 2) {
+            options.put((String) defaults[i], defaults[i + 1]);
+        }
+        World world = World.get();
+        if (world != null && world.getOptions() != null) {
+            for (PlanConfig planConfig : PlanConfig.readConfigs(world.getOptions())) {
+                if (planConfig.getId().equals(id)) {
+                    for (String key : SOLVER_OPTIONS) {
+                        Object value = planConfig.getOptions().get(key);
+                        if (value != null) {
+                            options.put(key, value);
+                        }
+                    }
+                }
+            }
+        }
+        return new AnalysisConfig(id, options.entrySet().stream()
+                .flatMap(e -> Stream.of(e.getKey(), e.getValue()))
+                .toArray());
     }
 
     /**
@@ -76,169 +145,172 @@ public class DeadCodeDetection extends MethodAnalysis {
     public Set<Stmt> analyze(IR ir) {
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        if (livevar != null) {
+            return analyzeFused(ir, cfg);
+        }
         // obtain result of constant propagation
-        DataflowResult<Stmt, CPFact> constants = ir.getResult(ConstantPropagation.ID);
+        NodeResult<Stmt, CPFact> constants = ir.getResult(ConstantPropagation.ID);
         // obtain result of live variable analysis
-        DataflowResult<Stmt, SetFact<Var>> liveVars = ir.getResult(LiveVariableAnalysis.ID);
-        // keep statements (dead code) sorted in the resulting set
-        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+        NodeResult<Stmt, SetFact<Var>> liveVars = ir.getResult(LiveVariableAnalysis.ID);
         // TODO - finish me
         // Your task is to recognize dead code in ir and add it to deadCode
-        var list = new LinkedList<Stmt>();
-        HashSet<Stmt> visited = new HashSet<>(), reached = new HashSet<>();
-
-        var entry = cfg.getEntry();
-
-        DeadCodeAnalysisContext context = new DeadCodeAnalysisContext(reached, visited, list, cfg, constants, liveVars);
-        addList(context, entry);
-        while (!list.isEmpty()) {
-            var stmt = list.pop();
-            if (stmt instanceof If) {
-                handleIfStmt(context, stmt);
-            } else if (stmt instanceof SwitchStmt) {
-                handleSwitchStmt(context, stmt);
-            } else if (stmt instanceof AssignStmt<?, ?>) {
-                handleAssignStmt(context, stmt);
-            } else {
-                context.reach.add(stmt);
-                addAllSuccessors(context, stmt);
+        if (constants instanceof SparseCPResult sparse) {
+            // sparse constant propagation has already decided
+            // the reachable branches, thus the CFG need not be walked again
+            BitSet reached = new BitSet(ir.getStmts().size());
+            for (Stmt stmt : ir) {
+                if (sparse.isExecutable(stmt) &&
+                        !(stmt instanceof AssignStmt<?, ?> assignStmt &&
+                                isDeadAssignment(assignStmt, liveVars))) {
+                    reached.set(stmt.getIndex());
+                }
             }
+            return collectDeadCode(ir, reached);
         }
+        BitSet reached = walk(cfg,
+                assignStmt -> isDeadAssignment(assignStmt, liveVars),
+                branch -> getOnlyTarget(cfg, branch, constants.getOutFact(branch)));
+        return collectDeadCode(ir, reached);
+    }
 
-        for (var stmt : cfg) {
-            if (!reached.contains(stmt) && !cfg.isExit(stmt)) {
-                deadCode.add(stmt);
+    /**
+     * Detects dead code without the results of live variable analysis and
+     * constant propagation stored in the IR. This method runs the two
+     * analyses on given IR by itself, and reduces their results to what
+     * the detection reads, i.e., whether each assignment is dead, and
+     * the only target of each branch whose condition is a constant.
+     * Each full result is released right after it is reduced, thus the
+     * peak memory is bounded by the working set of a single method,
+     * instead of the results of all methods. Unless the user specifies
+     * other solver options for the two analyses, they are solved on
+     * basic blocks, so that the working set only holds the facts at the
+     * boundaries of blocks. Note that "storage: boundary" alone does not
+     * suffice, as it still solves on statements and compacts the facts
+     * afterwards. Moreover, the live variables are allocated from the
+     * {@link FactArena} of current thread, which is recycled for the next
+     * method analyzed by the same thread.
+     */
+    private Set<Stmt> analyzeFused(IR ir, CFG<Stmt> cfg) {
+        // dead assignments, indexed by Stmt.getIndex()
+        BitSet deadAssigns = new BitSet(ir.getStmts().size());
+        try {
+            NodeResult<Stmt, SetFact<Var>> liveVars = livevar.analyze(ir);
+            for (Stmt stmt : ir) {
+                if (stmt instanceof AssignStmt<?, ?> assignStmt &&
+                        isDeadAssignment(assignStmt, liveVars)) {
+                    deadAssigns.set(stmt.getIndex());
+                }
             }
+        } finally {
+            FactArena.get().release();
         }
-        return deadCode;
-    }
-
-    private void addAllSuccessors(DeadCodeAnalysisContext context, Stmt stmt) {
-        for (var edge : context.cfg.getOutEdgesOf(stmt)) {
-            if (context.visited.contains(edge.getTarget())) {
-                continue;
+        // the only targets of branches, indexed by Stmt.getIndex()
+        Stmt[] onlyTargets = new Stmt[ir.getStmts().size()];
+        NodeResult<Stmt, CPFact> constants = constprop.analyze(ir);
+        for (Stmt stmt : ir) {
+            if (stmt instanceof If || stmt instanceof SwitchStmt) {
+                onlyTargets[stmt.getIndex()] =
+                        getOnlyTarget(cfg, stmt, constants.getOutFact(stmt));
             }
-            context.list.add(edge.getTarget());
         }
+        BitSet reached = walk(cfg,
+                assignStmt -> deadAssigns.get(assignStmt.getIndex()),
+                branch -> onlyTargets[branch.getIndex()]);
+        return collectDeadCode(ir, reached);
     }
 
-
-    private void handleIfStmt(DeadCodeAnalysisContext context, Stmt stmt) {
-        If ifStatement = (If) stmt;
-        ConditionExp exp = ifStatement.getCondition();
-        var fact = context.constants.getOutFact(stmt);
-        Value v1 = fact.get(exp.getOperand1()), v2 = fact.get(exp.getOperand2());
-
-        context.reach.add(stmt);
-
-        if (v1.isNAC() || v2.isNAC()) {
-            addAllSuccessors(context, stmt);
-            return;
-        }
-        // attention here
-        if (v1.isUndef() || v2.isUndef()) {
-            addAllSuccessors(context, stmt);
-            return;
-        }
-
-        int left = v1.getConstant(), right = v2.getConstant();
-
-        boolean eval = switch (exp.getOperator()) {
-            case NE -> left != right;
-            case LT -> left < right;
-            case LE -> left <= right;
-            case GT -> left > right;
-            case GE -> left >= right;
-            case EQ -> left == right;
-        };
-        var outEdge = context.cfg.getOutEdgesOf(stmt);
-        Stmt realTarget = null;
-        for (var edge : outEdge) {
-            var target = edge.getTarget();
-            if (context.visited.contains(target)) {
-                return;
+    /**
+     * Walks CFG from the entry, and only follows the targets that
+     * the branches may go to.
+     *
+     * @param isDead        tells whether an assignment is dead
+     * @param getOnlyTarget returns the only target that an {@link If}
+     *                      or {@link SwitchStmt} may go to, or null if
+     *                      the branch may go to all of its targets
+     * @return the indexes of the statements that are reached by the walk,
+     * except the dead assignments.
+     */
+    private static BitSet walk(CFG<Stmt> cfg,
+                               Predicate<AssignStmt<?, ?>> isDead,
+                               Function<Stmt, Stmt> getOnlyTarget) {
+        BitSet visited = new BitSet(cfg.getNumberOfNodes());
+        BitSet reached = new BitSet(cfg.getNumberOfNodes());
+        Deque<Stmt> workList = new ArrayDeque<>();
+        visited.set(cfg.getEntry().getIndex());
+        workList.add(cfg.getEntry());
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            if (!(stmt instanceof AssignStmt<?, ?> assignStmt &&
+                    isDead.test(assignStmt))) {
+                reached.set(stmt.getIndex());
             }
-            if (edge.getKind() == Edge.Kind.IF_TRUE && eval) {
-                realTarget = target;
-            } else if (edge.getKind() == Edge.Kind.IF_FALSE && !eval) {
-                realTarget = target;
+            Stmt onlyTarget = stmt instanceof If || stmt instanceof SwitchStmt ?
+                    getOnlyTarget.apply(stmt) : null;
+            if (onlyTarget != null) {
+                if (!visited.get(onlyTarget.getIndex())) {
+                    visited.set(onlyTarget.getIndex());
+                    workList.add(onlyTarget);
+                }
+            } else {
+                for (Stmt succ : cfg.getSuccsOf(stmt)) {
+                    if (!visited.get(succ.getIndex())) {
+                        visited.set(succ.getIndex());
+                        workList.add(succ);
+                    }
+                }
             }
         }
-
-        if (realTarget != null) {
-            addList(context, realTarget);
-        }
+        return reached;
     }
 
-    private void addList(DeadCodeAnalysisContext context, Stmt target) {
-        context.list.add(target);
-        context.visited.add(target);
+    /**
+     * @return the statements of given IR that are not reached,
+     * in the order of their indexes.
+     */
+    private static Set<Stmt> collectDeadCode(IR ir, BitSet reached) {
+        Set<Stmt> deadCode = new LinkedHashSet<>();
+        List<Stmt> stmts = ir.getStmts();
+        for (int i = reached.nextClearBit(0); i < stmts.size();
+             i = reached.nextClearBit(i + 1)) {
+            deadCode.add(stmts.get(i));
+        }
+        return deadCode;
     }
 
-    private void handleSwitchStmt(DeadCodeAnalysisContext context, Stmt stmt) {
-        var switchStmt = (SwitchStmt) stmt;
-        context.reach.add(stmt);
-        var value = context.constants.getOutFact(stmt).get(switchStmt.getVar());
-        if (value.isConstant()) {
-            var constant = value.getConstant();
-            for (var target : switchStmt.getCaseTargets()) {
-                if (target.first() == constant) {
-                    if (!context.visited.contains(target.second())) {
-                        addList(context, target.second());
-                        return;
+    /**
+     * @return the only target that given branch may go to according to
+     * the constants at the branch, or null if the branch may go to
+     * all of its targets.
+     */
+    private static Stmt getOnlyTarget(CFG<Stmt> cfg, Stmt branch, CPFact fact) {
+        if (branch instanceof If ifStmt) {
+            Value cond = ConstantPropagation.evaluate(ifStmt.getCondition(), fact);
+            if (cond != null && cond.isConstant()) {
+                Edge.Kind kind = cond.getConstant() != 0 ?
+                        Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE;
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(branch)) {
+                    if (edge.getKind() == kind) {
+                        return edge.getTarget();
                     }
                 }
-
-            }
-            if (!context.visited.contains(switchStmt.getDefaultTarget())) {
-                addList(context, switchStmt.getDefaultTarget());
-            }
-        } else {
-            for (var target : switchStmt.getCaseTargets()) {
-                if (!context.visited.contains(target.second())) {
-                    addList(context, target.second());
-                }
             }
-            if (!context.visited.contains(switchStmt.getDefaultTarget())) {
-                addList(context, switchStmt.getDefaultTarget());
+        } else if (branch instanceof SwitchStmt switchStmt) {
+            Value value = fact.get(switchStmt.getVar());
+            if (value.isConstant()) {
+                Stmt target = switchStmt.getCaseTarget(value.getConstant());
+                return target != null ? target : switchStmt.getDefaultTarget();
             }
         }
+        return null;
     }
 
-    private void handleAssignStmt(DeadCodeAnalysisContext context, Stmt stmt) {
-        var assignStmt = (AssignStmt<?, ?>) stmt;
+    private static boolean isDeadAssignment(AssignStmt<?, ?> assignStmt,
+                                            NodeResult<Stmt, SetFact<Var>> liveVars) {
         var lvalue = assignStmt.getLValue();
         var rvalue = assignStmt.getRValue();
 
-        var fact = context.liveVars.getOutFact(stmt);
-
-        if ((!hasNoSideEffect(rvalue)) || (lvalue instanceof Var var && fact.contains(var)) || (!(lvalue instanceof Var))) {
-            context.reach.add(stmt);
-        }
-
-        addAllSuccessors(context, stmt);
-
-    }
-
-    static class DeadCodeAnalysisContext {
-        HashSet<Stmt> reach;
-        HashSet<Stmt> visited;
-        LinkedList<Stmt> list;
-
-        CFG<Stmt> cfg;
-
-        DataflowResult<Stmt, CPFact> constants;
-
-        DataflowResult<Stmt, SetFact<Var>> liveVars;
-
-        DeadCodeAnalysisContext(HashSet<Stmt> reach, HashSet<Stmt> visited, LinkedList<Stmt> list, CFG<Stmt> cfg, DataflowResult<Stmt, CPFact> constants, DataflowResult<Stmt, SetFact<Var>> liveVars) {
-            this.reach = reach;
-            this.visited = visited;
-            this.list = list;
-            this.cfg = cfg;
-            this.constants = constants;
-            this.liveVars = liveVars;
-        }
+        var fact = liveVars.getOutFact(assignStmt);
 
+        return hasNoSideEffect(rvalue) && lvalue instanceof Var var && !fact.contains(var);
     }
 }
@@ -0,0 +1,609 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Result of constant propagation, which is computed by sparse conditional
+ * constant propagation instead of solving data-flow equations over
+ * whole {@link CPFact}s.
+ * <p>
+ * A definition of an int variable is either a statement that assigns
+ * the variable, or a parameter, which is defined at the entry of CFG.
+ * The analysis keeps a single {@link Value} per definition, and connects
+ * each definition to the statements that use it, by walking forward from
+ * the definition over the executable edges of CFG until the variable is
+ * redefined. A statement is re-evaluated only when the value of a
+ * definition used by the statement changes, when a new definition
+ * reaches the statement, or when the statement becomes executable.
+ * <p>
+ * An edge is executable if its source is executable and, for the
+ * branches of {@link If} and {@link SwitchStmt}, the edge may be taken
+ * according to the values computed so far. A statement is executable if
+ * it is the entry of CFG, or the target of an executable edge. A branch
+ * whose condition is still UNDEF takes no edge, and it is polled again
+ * when the value of an operand changes. The walk of a definition stops at
+ * the edges that are not taken yet, and is resumed from them once they
+ * are taken, thus a definition that only reaches a statement through
+ * an edge that is never taken does not pollute the values at the
+ * statement. As UNDEF decides branches, definitions whose right-hand
+ * sides are not supported by {@link Evaluator}s, e.g., field loads,
+ * are NAC.
+ * <p>
+ * The {@link CPFact}s of a statement are built on demand when queried,
+ * by walking backward from the statement over executable edges to the
+ * definitions that reach it. The facts of the statements that are not
+ * executable are empty.
+ */
+public class SparseCPResult implements NodeResult<Stmt, CPFact> {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final ConstantPropagation analysis;
+
+    private final CFG<Stmt> cfg;
+
+    private final List<Var> params;
+
+    /**
+     * Evaluators of the definitions and of the conditions of {@link If}s,
+     * indexed by {@link Stmt#getIndex()}. The evaluators of the conditions
+     * do not have left-hand sides.
+     */
+    private final Evaluator[] evaluators;
+
+    /**
+     * Number of nodes in CFG. The entry and exit of CFG are indexed right
+     * after the statements, and the definitions of the parameters are
+     * identified by the indexes after the nodes.
+     */
+    private final int nodeCount;
+
+    /**
+     * Packed values of the definitions, see {@link CPFact#pack(Value)}.
+     */
+    private final long[] values;
+
+    private final BitSet executable;
+
+    /**
+     * Out edges of {@link If}s and {@link SwitchStmt}s that may be taken.
+     * The out edges of the other executable nodes are all executable.
+     */
+    private final Set<Edge<Stmt>> takenEdges = Sets.newSet();
+
+    SparseCPResult(ConstantPropagation analysis, CFG<Stmt> cfg) {
+        this.analysis = analysis;
+        this.cfg = cfg;
+        IR ir = cfg.getIR();
+        params = ir.getParams();
+        evaluators = compile(ir);
+        nodeCount = ir.getStmts().size() + 2;
+        values = new long[nodeCount + params.size()];
+        executable = new BitSet(nodeCount);
+        for (int i = 0; i < params.size(); ++i) {
+            if (ConstantPropagation.canHoldInt(params.get(i))) {
+                values[nodeCount + i] = CPFact.pack(Value.getNAC());
+            }
+        }
+        new Propagation().propagate();
+    }
+
+    /**
+     * @return the evaluators of the statements of given IR, where the
+     * definitions of int variables that are not supported are NAC.
+     * The definitions that read non-int variables, e.g., the results of
+     * {@code lcmp} and {@code fcmp}, are not supported either, as the
+     * values of their operands are never kept and are thus UNDEF.
+     * The same holds for the conditions of {@link If}s.
+     */
+    private static Evaluator[] compile(IR ir) {
+        Evaluator[] evaluators = ConstantPropagation.compile(ir);
+        for (Stmt stmt : ir) {
+            if (stmt instanceof DefinitionStmt<?, ?> definitionStmt &&
+                    definitionStmt.getLValue() instanceof Var var &&
+                    ConstantPropagation.canHoldInt(var) &&
+                    (evaluators[stmt.getIndex()] == null || !usesOnlyInts(stmt))) {
+                evaluators[stmt.getIndex()] =
+                        new Evaluator.Constant(var, Value.getNAC());
+            } else if (stmt instanceof If ifStmt) {
+                evaluators[stmt.getIndex()] = usesOnlyInts(stmt) ?
+                        Evaluator.ofBinary(null, ifStmt.getCondition()) :
+                        new Evaluator.Constant(null, Value.getNAC());
+            }
+        }
+        return evaluators;
+    }
+
+    private static boolean usesOnlyInts(Stmt stmt) {
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var && !ConstantPropagation.canHoldInt(var)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the node of given index defines an int variable.
+     */
+    private boolean isDef(int index) {
+        return index < evaluators.length && evaluators[index] != null
+                && evaluators[index].getLValue() != null;
+    }
+
+    private Var getVar(int def) {
+        return def < nodeCount ? evaluators[def].getLValue()
+                : params.get(def - nodeCount);
+    }
+
+    /**
+     * @return true if the variable is redefined by the node,
+     * and thus the definitions of the variable stop at the node.
+     */
+    private boolean isDefinedBy(Var var, int index) {
+        return isDef(index) && evaluators[index].getLValue() == var;
+    }
+
+    private static boolean isUsedBy(Var var, Stmt stmt) {
+        for (RValue use : stmt.getUses()) {
+            if (use == var) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBranch(Stmt stmt) {
+        return stmt instanceof If || stmt instanceof SwitchStmt;
+    }
+
+    private boolean isExecutable(Edge<Stmt> edge) {
+        Stmt source = edge.getSource();
+        return executable.get(source.getIndex()) &&
+                (!isBranch(source) || takenEdges.contains(edge));
+    }
+
+    /**
+     * State of the propagation, which is discarded once the values
+     * of the definitions are computed.
+     */
+    private class Propagation {
+
+        private final Deque<Stmt> workList = new ArrayDeque<>();
+
+        /**
+         * Definitions that reach each node over executable edges and
+         * define a variable used by the node, i.e., the operands of the node.
+         */
+        private final IntList[] operandDefs = new IntList[nodeCount];
+
+        /**
+         * Nodes that use the variable of each definition,
+         * and are reached by the definition.
+         */
+        private final IntList[] usesOf = new IntList[values.length];
+
+        /**
+         * Definitions whose walks reach each branch, and stop at the
+         * edges of the branch that are not taken yet.
+         */
+        private final IntList[] stoppedDefs = new IntList[nodeCount];
+
+        /**
+         * The walk that visited each node most recently.
+         */
+        private final int[] visitedBy = new int[nodeCount];
+
+        private int walks;
+
+        /**
+         * The resumption that resumed the walk of each definition most
+         * recently, which avoids resuming a walk twice for the same edges.
+         */
+        private final int[] resumedBy = new int[values.length];
+
+        private int resumes;
+
+        private void propagate() {
+            BitSet visited = new BitSet(nodeCount);
+            Stmt entry = cfg.getEntry();
+            executable.set(entry.getIndex());
+            workList.add(entry);
+            while (!workList.isEmpty()) {
+                Stmt stmt = workList.poll();
+                int index = stmt.getIndex();
+                if (isDef(index)) {
+                    long value = CPFact.meet(values[index], evaluate(index));
+                    if (value != values[index]) {
+                        values[index] = value;
+                        // the uses that are not executable yet are
+                        // evaluated when they become executable
+                        forEach(usesOf[index], use -> {
+                            if (executable.get(use)) {
+                                workList.add(cfg.getIR().getStmt(use));
+                            }
+                        });
+                    }
+                }
+                if (isBranch(stmt)) {
+                    takeEdges(stmt);
+                } else if (!visited.get(index)) {
+                    visited.set(index);
+                    // the out edges of other nodes are executable with the nodes
+                    for (Stmt succ : cfg.getSuccsOf(stmt)) {
+                        setExecutable(succ);
+                    }
+                    if (isDef(index)) {
+                        walk(index, cfg.getSuccsOf(stmt));
+                    } else if (cfg.isEntry(stmt)) {
+                        for (int i = 0; i < params.size(); ++i) {
+                            if (values[nodeCount + i] != 0) {
+                                walk(nodeCount + i, cfg.getSuccsOf(stmt));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private void setExecutable(Stmt stmt) {
+            if (!executable.get(stmt.getIndex())) {
+                executable.set(stmt.getIndex());
+                workList.add(stmt);
+            }
+        }
+
+        /**
+         * Takes the out edges of given branch that may be taken now, and
+         * resumes the walks that stop at the branch from the new edges.
+         */
+        private void takeEdges(Stmt branch) {
+            int index = branch.getIndex();
+            // the operands of branches are evaluated once for all out edges
+            CPFact in = newFact(operandDefs[index]);
+            List<Stmt> targets = new ArrayList<>();
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(branch)) {
+                if (!takenEdges.contains(edge) && mayTake(edge, in)) {
+                    takenEdges.add(edge);
+                    targets.add(edge.getTarget());
+                    setExecutable(edge.getTarget());
+                }
+            }
+            if (!targets.isEmpty()) {
+                int resume = ++resumes;
+                forEach(stoppedDefs[index], def -> {
+                    // a definition may stop at a branch in several walks
+                    if (resumedBy[def] != resume) {
+                        resumedBy[def] = resume;
+                        walk(def, targets);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Walks forward from given nodes over executable edges, and connects
+         * the definition to the nodes that use its variable, until the
+         * variable is redefined.
+         */
+        private void walk(int def, Collection<Stmt> starts) {
+            Var var = getVar(def);
+            int walk = ++walks;
+            Deque<Stmt> stack = new ArrayDeque<>(starts);
+            while (!stack.isEmpty()) {
+                Stmt node = stack.pop();
+                int index = node.getIndex();
+                if (visitedBy[index] == walk) {
+                    continue;
+                }
+                visitedBy[index] = walk;
+                if (isUsedBy(var, node)) {
+                    reach(def, index);
+                }
+                if (isDefinedBy(var, index)) {
+                    continue;
+                }
+                if (isBranch(node)) {
+                    boolean stopped = false;
+                    for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                        if (takenEdges.contains(edge)) {
+                            stack.push(edge.getTarget());
+                        } else {
+                            stopped = true;
+                        }
+                    }
+                    if (stopped) {
+                        stoppedDefs[index] = add(stoppedDefs[index], def);
+                    }
+                } else {
+                    cfg.getSuccsOf(node).forEach(stack::push);
+                }
+            }
+        }
+
+        /**
+         * Connects given definition to a node that uses its variable.
+         */
+        private void reach(int def, int use) {
+            if (operandDefs[use] == null || !operandDefs[use].contains(def)) {
+                operandDefs[use] = add(operandDefs[use], def);
+                usesOf[def] = add(usesOf[def], use);
+                // the use is re-evaluated with the new operand, or
+                // evaluated when it becomes executable
+                if (values[def] != 0 && executable.get(use)) {
+                    workList.add(cfg.getIR().getStmt(use));
+                }
+            }
+        }
+
+        /**
+         * @return packed value of the definition at given statement.
+         */
+        private long evaluate(int index) {
+            CPFact in = newFact(operandDefs[index]);
+            return CPFact.pack(evaluators[index].evaluate(in));
+        }
+
+        private CPFact newFact(@Nullable IntList defs) {
+            CPFact fact = analysis.newInitialFact();
+            forEach(defs, def -> meetDef(fact, def));
+            return fact;
+        }
+
+        /**
+         * @return true if the control may flow through given out edge
+         * of a branch according to the values computed so far. A branch
+         * takes only the edge of its condition if the condition is a
+         * constant, no edge if the condition is UNDEF, and all edges
+         * otherwise.
+         *
+         * @param in the fact of the operands of the branch
+         */
+        private boolean mayTake(Edge<Stmt> edge, CPFact in) {
+            Stmt source = edge.getSource();
+            if (source instanceof If) {
+                Value cond = evaluators[source.getIndex()].evaluate(in);
+                if (cond.isConstant()) {
+                    return edge.getKind() == (cond.getConstant() != 0 ?
+                            Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE);
+                }
+                return !cond.isUndef();
+            } else if (source instanceof SwitchStmt switchStmt) {
+                Value value = in.get(switchStmt.getVar());
+                if (value.isUndef()) {
+                    return false;
+                } else if (value.isConstant()) {
+                    int constant = value.getConstant();
+                    if (edge.isSwitchCase()) {
+                        return edge.getCaseValue() == constant;
+                    } else if (edge.getKind() == Edge.Kind.SWITCH_DEFAULT) {
+                        return switchStmt.getCaseTarget(constant) == null;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Meets the value of given definition into given fact.
+     */
+    private void meetDef(CPFact fact, int def) {
+        long value = values[def];
+        if (value != 0) {
+            Var var = getVar(def);
+            fact.update(var, CPFact.unpack(
+                    CPFact.meet(CPFact.pack(fact.get(var)), value)));
+        }
+    }
+
+    /**
+     * @return true if given statement may be executed, otherwise false.
+     */
+    public boolean isExecutable(Stmt stmt) {
+        return executable.get(stmt.getIndex());
+    }
+
+    @Override
+    public CPFact getInFact(Stmt stmt) {
+        int index = stmt.getIndex();
+        if (index >= nodeCount) {
+            return null;
+        }
+        CPFact fact = analysis.newInitialFact();
+        if (isExecutable(stmt)) {
+            for (int def : getReachingDefs(stmt)) {
+                meetDef(fact, def);
+            }
+        }
+        return fact;
+    }
+
+    /**
+     * @return the definitions that reach the entry of given statement
+     * along the executable edges. The walk goes backward from the
+     * statement, and looks for the definitions of each variable until
+     * they are found, thus each statement is visited once per variable
+     * at most.
+     */
+    private int[] getReachingDefs(Stmt stmt) {
+        List<Var> vars = cfg.getIR().getVars();
+        BitSet all = new BitSet(vars.size());
+        vars.forEach(var -> {
+            if (ConstantPropagation.canHoldInt(var)) {
+                all.set(var.getIndex());
+            }
+        });
+        // variables whose definitions are looked for at the exit of each node
+        BitSet[] sought = new BitSet[nodeCount];
+        Deque<Stmt> workList = new ArrayDeque<>();
+        Deque<BitSet> varsList = new ArrayDeque<>();
+        IntList defs = null;
+        seekPreds(stmt, all, sought, workList, varsList);
+        while (!workList.isEmpty()) {
+            Stmt node = workList.poll();
+            BitSet seeking = varsList.poll();
+            int index = node.getIndex();
+            if (isDef(index)) {
+                int var = evaluators[index].getLValue().getIndex();
+                if (seeking.get(var)) {
+                    defs = add(defs, index);
+                    seeking.clear(var);
+                }
+            } else if (cfg.isEntry(node)) {
+                for (int i = 0; i < params.size(); ++i) {
+                    if (seeking.get(params.get(i).getIndex())) {
+                        defs = add(defs, nodeCount + i);
+                    }
+                }
+                continue;
+            }
+            if (!seeking.isEmpty()) {
+                seekPreds(node, seeking, sought, workList, varsList);
+            }
+        }
+        return defs == null ? EMPTY : defs.toArray();
+    }
+
+    /**
+     * Adds the sources of the executable in edges of given node, with the
+     * variables that are not yet sought at the sources, to the work list.
+     */
+    private void seekPreds(Stmt node, BitSet vars, BitSet[] sought,
+                           Deque<Stmt> workList, Deque<BitSet> varsList) {
+        for (Edge<Stmt> edge : cfg.getInEdgesOf(node)) {
+            if (!isExecutable(edge)) {
+                continue;
+            }
+            Stmt pred = edge.getSource();
+            int index = pred.getIndex();
+            BitSet newVars = (BitSet) vars.clone();
+            if (sought[index] == null) {
+                sought[index] = new BitSet();
+            } else {
+                newVars.andNot(sought[index]);
+            }
+            if (!newVars.isEmpty()) {
+                sought[index].or(newVars);
+                workList.add(pred);
+                varsList.add(newVars);
+            }
+        }
+    }
+
+    @Override
+    public CPFact getOutFact(Stmt stmt) {
+        CPFact fact = getInFact(stmt);
+        if (fact != null && isExecutable(stmt)) {
+            int index = stmt.getIndex();
+            if (isDef(index)) {
+                fact.update(evaluators[index].getLValue(),
+                        CPFact.unpack(values[index]));
+            } else if (cfg.isEntry(stmt)) {
+                for (int i = 0; i < params.size(); ++i) {
+                    if (values[nodeCount + i] != 0) {
+                        fact.update(params.get(i), CPFact.unpack(values[nodeCount + i]));
+                    }
+                }
+            }
+        }
+        return fact;
+    }
+
+    /**
+     * Adds an element to given list, which is created on demand, as most
+     * nodes use no variables and most definitions stop at no branches.
+     *
+     * @return the list containing the element.
+     */
+    private static IntList add(@Nullable IntList list, int e) {
+        if (list == null) {
+            list = new IntList();
+        }
+        list.add(e);
+        return list;
+    }
+
+    private static void forEach(@Nullable IntList list, IntConsumer action) {
+        if (list != null) {
+            // the list may grow during the iteration
+            for (int i = 0; i < list.size; ++i) {
+                action.accept(list.elements[i]);
+            }
+        }
+    }
+
+    /**
+     * Growable list of ints, which avoids boxing the (possibly many)
+     * definitions used by each node.
+     */
+    private static class IntList {
+
+        private int[] elements = EMPTY;
+
+        private int size;
+
+        private void add(int e) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, Math.max(4, size * 2));
+            }
+            elements[size++] = e;
+        }
+
+        private boolean contains(int e) {
+            for (int i = 0; i < size; ++i) {
+                if (elements[i] == e) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int[] toArray() {
+            return size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+    }
+}
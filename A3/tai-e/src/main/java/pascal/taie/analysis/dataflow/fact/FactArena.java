@@ -0,0 +1,125 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Allocates the data-flow facts of a method out of reusable blocks.
+ * <p>
+ * Solving a method creates the initial facts of all nodes, plus the
+ * facts created by transfer, e.g., the gen and kill sets of
+ * {@link pascal.taie.analysis.dataflow.analysis.AbstractGenKillAnalysis}.
+ * An arena carves the words of these facts out of large blocks of
+ * {@code long}s. After the facts of a method are no longer needed, i.e.,
+ * the result has been reduced to what its user reads, {@link #release()}
+ * recycles all the blocks for the facts of the next method. The heap used
+ * by the facts is thus bounded by the largest method, and solving
+ * more methods does not allocate more blocks.
+ * <p>
+ * Each thread has its own arena (see {@link #get()}), so methods
+ * analyzed in parallel do not share blocks. Facts allocated by an
+ * arena must not be used after the arena is released, as their words
+ * will be reused by other facts.
+ */
+public class FactArena {
+
+    /**
+     * Number of words of each block, i.e., 512KB.
+     */
+    private static final int BLOCK_WORDS = 1 << 16;
+
+    /**
+     * Maximum number of blocks kept by a released arena, i.e., 8MB.
+     * The blocks beyond this are left to GC, so that a huge method
+     * does not pin its blocks for the lifetime of the thread.
+     */
+    private static final int MAX_KEPT_BLOCKS = 16;
+
+    private static final ThreadLocal<FactArena> ARENAS =
+            ThreadLocal.withInitial(FactArena::new);
+
+    private final List<long[]> blocks = new ArrayList<>();
+
+    /**
+     * Index of the block being carved.
+     */
+    private int current = -1;
+
+    /**
+     * Number of words carved from the current block.
+     */
+    private int used = BLOCK_WORDS;
+
+    private FactArena() {
+    }
+
+    /**
+     * @return the arena of current thread.
+     */
+    public static FactArena get() {
+        return ARENAS.get();
+    }
+
+    /**
+     * @return a new empty {@link BitSetFact} whose words are carved
+     * out of this arena. Its copies are allocated on the heap as usual.
+     */
+    public <E extends Indexable> BitSetFact<E> newBitSetFact(List<E> universe) {
+        int length = BitSetFact.wordsFor(universe.size());
+        if (length == 0 || length > BLOCK_WORDS) {
+            // nothing to carve for an empty universe, e.g., the
+            // variables of a static method without parameters, or
+            // too large to share a block
+            return new BitSetFact<>(universe);
+        }
+        if (used + length > BLOCK_WORDS) {
+            if (++current == blocks.size()) {
+                blocks.add(new long[BLOCK_WORDS]);
+            }
+            used = 0;
+        }
+        long[] block = blocks.get(current);
+        // the words may be left by the facts of a released method
+        Arrays.fill(block, used, used + length, 0L);
+        BitSetFact<E> fact = new BitSetFact<>(universe, block, used, length);
+        used += length;
+        return fact;
+    }
+
+    /**
+     * Recycles all blocks of this arena. The facts allocated before
+     * must not be used afterwards.
+     */
+    public void release() {
+        while (blocks.size() > MAX_KEPT_BLOCKS) {
+            blocks.remove(blocks.size() - 1);
+        }
+        current = -1;
+        used = BLOCK_WORDS;
+    }
+}
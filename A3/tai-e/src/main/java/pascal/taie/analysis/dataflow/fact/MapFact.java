@@ -54,6 +54,15 @@ public class MapFact<K, V> {
         this.map = Maps.newHybridMap(map);
     }
 
+    /**
+     * Constructs a new MapFact without {@link #map}, for subclasses that
+     * keep the mappings in their own data structures. Such subclasses
+     * must override all public methods of this class.
+     */
+    protected MapFact() {
+        this.map = null;
+    }
+
     /**
      * @return the value to which the specified key is mapped,
      * or null if this map contains no mapping for the key.
@@ -88,7 +97,9 @@ public class MapFact<K, V> {
      */
     public boolean copyFrom(MapFact<K, V> fact) {
         boolean changed = false;
-        for (Map.Entry<K, V> entry : fact.map.entrySet()) {
+        // the given fact may not have the map, see MapFact()
+        for (Map.Entry<K, V> entry :
+                (Iterable<Map.Entry<K, V>>) fact.entries()::iterator) {
             changed |= update(entry.getKey(), entry.getValue());
         }
         return changed;
@@ -0,0 +1,199 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.BlockEdge;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.stmt.Stmt;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Solver whose results only store the facts at the boundaries of the
+ * basic blocks of CFGs, see {@link BoundaryDataflowResult}.
+ * <p>
+ * If {@link #solveOnBlocks} is true, this solver lets an underlying solver
+ * solve the problem on the {@link BlockCFG}, where the transfer of a block
+ * composes the transfers of its statements, so that only the facts at the
+ * boundaries of blocks are iterated. Otherwise, the problem is solved on
+ * statements as usual, and the result is compacted after solving.
+ */
+class BlockSolver<Fact> implements DataflowSolver<Stmt, Fact> {
+
+    private final DataflowAnalysis<Stmt, Fact> analysis;
+
+    /**
+     * Kind of the underlying solver.
+     */
+    @Nullable
+    private final String kind;
+
+    private final boolean solveOnBlocks;
+
+    /**
+     * Statistics of the solving, which are passed to the underlying solver,
+     * see {@link Solver#stats}.
+     */
+    @Nullable
+    SolverStats stats;
+
+    BlockSolver(DataflowAnalysis<Stmt, Fact> analysis,
+                @Nullable String kind, boolean solveOnBlocks) {
+        this.analysis = analysis;
+        this.kind = kind;
+        this.solveOnBlocks = solveOnBlocks;
+    }
+
+    @Override
+    public NodeResult<Stmt, Fact> solve(CFG<Stmt> cfg) {
+        BlockCFG blockCFG = new BlockCFG(cfg, analysis::needTransferEdge);
+        NodeResult<Stmt, Fact> stmtFacts;
+        if (solveOnBlocks) {
+            Solver<BasicBlock, Fact> solver = Solver.makeSolver(new BlockAnalysis(cfg), kind);
+            solver.stats = stats;
+            DataflowResult<BasicBlock, Fact> blockResult = solver.solve(blockCFG);
+            // the facts of blocks are the facts at their boundaries
+            stmtFacts = new NodeResult<>() {
+                @Override
+                public Fact getInFact(Stmt stmt) {
+                    return blockResult.getInFact(blockCFG.getBlockOf(stmt));
+                }
+
+                @Override
+                public Fact getOutFact(Stmt stmt) {
+                    return blockResult.getOutFact(blockCFG.getBlockOf(stmt));
+                }
+            };
+        } else {
+            Solver<Stmt, Fact> solver = Solver.makeSolver(analysis, kind);
+            solver.stats = stats;
+            stmtFacts = solver.solve(cfg);
+        }
+        return new BoundaryDataflowResult<>(analysis, blockCFG, stmtFacts);
+    }
+
+    /**
+     * Lifts the analysis from statements to the blocks of a specific CFG.
+     */
+    private class BlockAnalysis implements DataflowAnalysis<BasicBlock, Fact> {
+
+        private final CFG<Stmt> cfg;
+
+        /**
+         * Facts between the statements of a block, which are reused in turn
+         * by all transfers, so that transferring a block allocates no facts.
+         */
+        private final Fact[] scratch;
+
+        @SuppressWarnings("unchecked")
+        private BlockAnalysis(CFG<Stmt> cfg) {
+            this.cfg = cfg;
+            this.scratch = (Fact[]) new Object[]{
+                    analysis.newInitialFact(cfg), analysis.newInitialFact(cfg)};
+        }
+
+        /**
+         * @return an empty fact for the i-th statement of a block, which is
+         * a cleared scratch fact if the fact can be cleared.
+         */
+        private Fact scratchFact(int i) {
+            Fact fact = scratch[i & 1];
+            if (fact instanceof SetFact<?> setFact) {
+                setFact.clear();
+                return fact;
+            } else if (fact instanceof MapFact<?, ?> mapFact) {
+                mapFact.clear();
+                return fact;
+            } else {
+                return analysis.newInitialFact(cfg);
+            }
+        }
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public Fact newBoundaryFact(CFG<BasicBlock> blockCFG) {
+            return analysis.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public Fact newInitialFact() {
+            return analysis.newInitialFact();
+        }
+
+        @Override
+        public Fact newInitialFact(CFG<BasicBlock> blockCFG) {
+            return analysis.newInitialFact(cfg);
+        }
+
+        @Override
+        public void meetInto(Fact fact, Fact target) {
+            analysis.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(BasicBlock block, Fact in, Fact out) {
+            List<Stmt> stmts = block.getStmts();
+            int last = stmts.size() - 1;
+            if (analysis.isForward()) {
+                Fact fact = in;
+                for (int i = 0; i < last; ++i) {
+                    Fact next = scratchFact(i);
+                    analysis.transferNode(stmts.get(i), fact, next);
+                    fact = next;
+                }
+                return analysis.transferNode(stmts.get(last), fact, out);
+            } else {
+                Fact fact = out;
+                for (int i = last; i > 0; --i) {
+                    Fact prev = scratchFact(i);
+                    analysis.transferNode(stmts.get(i), prev, fact);
+                    fact = prev;
+                }
+                return analysis.transferNode(stmts.get(0), in, fact);
+            }
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<BasicBlock> edge) {
+            return analysis.needTransferEdge(((BlockEdge) edge).getStmtEdge());
+        }
+
+        @Override
+        public Fact transferEdge(Edge<BasicBlock> edge, Fact nodeFact) {
+            return analysis.transferEdge(((BlockEdge) edge).getStmtEdge(), nodeFact);
+        }
+    }
+}
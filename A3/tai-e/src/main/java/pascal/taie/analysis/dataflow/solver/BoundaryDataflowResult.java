@@ -0,0 +1,173 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data-flow result which only stores the facts at the boundaries of
+ * basic blocks, i.e., the in-facts of the first statements of blocks for
+ * forward analyses, and the out-facts of the last statements of blocks
+ * for backward analyses.
+ * <p>
+ * The facts of other statements are recomputed on demand by replaying
+ * the transfers of the statements in the block from the stored fact.
+ * The recomputed facts of a few most recently queried blocks are cached,
+ * as the statements of the same block are typically queried together.
+ */
+class BoundaryDataflowResult<Fact> implements NodeResult<Stmt, Fact> {
+
+    /**
+     * Maximum number of blocks whose statement facts are cached.
+     */
+    private static final int CACHE_SIZE = 16;
+
+    private final DataflowAnalysis<Stmt, Fact> analysis;
+
+    private final BlockCFG blockCFG;
+
+    /**
+     * Stored fact of each block, indexed by {@link BasicBlock#getIndex()}.
+     */
+    private final List<Fact> boundaryFacts;
+
+    /**
+     * Out-fact of the entry (for forward analyses) or in-fact of
+     * the exit (for backward analyses), i.e., the boundary fact.
+     */
+    private final Fact boundaryNodeFact;
+
+    private final Map<BasicBlock, StmtFacts<Fact>> cache =
+            new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<BasicBlock, StmtFacts<Fact>> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    /**
+     * @param stmtFacts provides the facts at the boundaries of blocks,
+     *                  other facts are not queried.
+     */
+    BoundaryDataflowResult(DataflowAnalysis<Stmt, Fact> analysis,
+                           BlockCFG blockCFG, NodeResult<Stmt, Fact> stmtFacts) {
+        this.analysis = analysis;
+        this.blockCFG = blockCFG;
+        boundaryFacts = new ArrayList<>(blockCFG.getNumberOfNodes());
+        for (BasicBlock block : blockCFG) {
+            boundaryFacts.add(analysis.isForward() ?
+                    stmtFacts.getInFact(block.getFirstStmt()) :
+                    stmtFacts.getOutFact(block.getLastStmt()));
+        }
+        CFG<Stmt> cfg = blockCFG.getStmtCFG();
+        boundaryNodeFact = analysis.isForward() ?
+                stmtFacts.getOutFact(cfg.getEntry()) :
+                stmtFacts.getInFact(cfg.getExit());
+    }
+
+    @Override
+    public Fact getInFact(Stmt stmt) {
+        if (analysis.isForward()) {
+            if (blockCFG.getStmtCFG().isEntry(stmt)) {
+                return null;
+            }
+        } else if (blockCFG.getStmtCFG().isExit(stmt)) {
+            return boundaryNodeFact;
+        }
+        BasicBlock block = blockCFG.getBlockOf(stmt);
+        if (analysis.isForward() && stmt == block.getFirstStmt()) {
+            return boundaryFacts.get(block.getIndex());
+        }
+        return getStmtFacts(block).inFacts().get(blockCFG.getPositionOf(stmt));
+    }
+
+    @Override
+    public Fact getOutFact(Stmt stmt) {
+        if (analysis.isForward()) {
+            if (blockCFG.getStmtCFG().isEntry(stmt)) {
+                return boundaryNodeFact;
+            }
+        } else if (blockCFG.getStmtCFG().isExit(stmt)) {
+            return null;
+        }
+        BasicBlock block = blockCFG.getBlockOf(stmt);
+        if (!analysis.isForward() && stmt == block.getLastStmt()) {
+            return boundaryFacts.get(block.getIndex());
+        }
+        return getStmtFacts(block).outFacts().get(blockCFG.getPositionOf(stmt));
+    }
+
+    private StmtFacts<Fact> getStmtFacts(BasicBlock block) {
+        synchronized (cache) {
+            return cache.computeIfAbsent(block, this::computeStmtFacts);
+        }
+    }
+
+    /**
+     * Replays the transfers of the statements in given block,
+     * starting from the stored fact of the block.
+     */
+    private StmtFacts<Fact> computeStmtFacts(BasicBlock block) {
+        List<Stmt> stmts = block.getStmts();
+        int size = stmts.size();
+        List<Fact> inFacts = new ArrayList<>(Collections.nCopies(size, null));
+        List<Fact> outFacts = new ArrayList<>(Collections.nCopies(size, null));
+        CFG<Stmt> cfg = blockCFG.getStmtCFG();
+        if (analysis.isForward()) {
+            inFacts.set(0, boundaryFacts.get(block.getIndex()));
+            for (int i = 0; i < size; ++i) {
+                Fact out = analysis.newInitialFact(cfg);
+                analysis.transferNode(stmts.get(i), inFacts.get(i), out);
+                outFacts.set(i, out);
+                if (i + 1 < size) {
+                    inFacts.set(i + 1, out);
+                }
+            }
+        } else {
+            outFacts.set(size - 1, boundaryFacts.get(block.getIndex()));
+            for (int i = size - 1; i >= 0; --i) {
+                Fact in = analysis.newInitialFact(cfg);
+                analysis.transferNode(stmts.get(i), in, outFacts.get(i));
+                inFacts.set(i, in);
+                if (i > 0) {
+                    outFacts.set(i - 1, in);
+                }
+            }
+        }
+        return new StmtFacts<>(inFacts, outFacts);
+    }
+
+    private record StmtFacts<Fact>(List<Fact> inFacts, List<Fact> outFacts) {
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+/**
+ * Solves a data-flow analysis on the CFGs of methods. Besides
+ * {@link Solver}s, which iterate the facts of CFG nodes, this interface
+ * is implemented by the solvers which wrap other solvers, e.g.,
+ * {@link BlockSolver} and {@link InstrumentedSolver}.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+public interface DataflowSolver<Node, Fact> {
+
+    /**
+     * Starts this solver on the given CFG.
+     *
+     * @param cfg control-flow graph where the analysis is performed on
+     * @return the analysis result
+     */
+    NodeResult<Node, Fact> solve(CFG<Node> cfg);
+}
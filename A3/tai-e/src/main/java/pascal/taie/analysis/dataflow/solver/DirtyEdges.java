@@ -0,0 +1,82 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks the incoming edges whose source facts changed since their targets
+ * were last processed, so that solvers only meet the facts of these edges
+ * into the targets. This is sound as the facts of each node only grow
+ * during solving, thus the facts of the other edges have been met.
+ * <p>
+ * An edge can be represented by the predecessor, e.g., for CFGs,
+ * or by the edge object itself, e.g., for ICFGs whose edges carry
+ * edge transfers.
+ *
+ * @param <Node> type of nodes
+ * @param <E>    type of edges
+ */
+public class DirtyEdges<Node, E> {
+
+    /**
+     * Dirty edges of each processed node. The nodes that have not been
+     * processed are absent, and all their incoming edges are dirty.
+     */
+    private final Map<Node, Set<E>> dirtyEdges = Maps.newMap();
+
+    /**
+     * Marks an incoming edge of given node dirty.
+     */
+    public void mark(Node target, E edge) {
+        Set<E> edges = dirtyEdges.get(target);
+        if (edges != null) {
+            edges.add(edge);
+        }
+    }
+
+    /**
+     * Returns and resets the dirty incoming edges of given node.
+     *
+     * @param inEdges all incoming edges of the node, which are returned
+     *                when the node is processed for the first time.
+     */
+    public Collection<E> take(Node target, Collection<E> inEdges) {
+        Set<E> edges = dirtyEdges.get(target);
+        if (edges == null) {
+            dirtyEdges.put(target, Sets.newHybridSet());
+            return inEdges;
+        } else if (edges.isEmpty()) {
+            return Collections.emptySet();
+        } else {
+            dirtyEdges.put(target, Sets.newHybridSet());
+            return edges;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+import java.util.function.Function;
+
+/**
+ * Solver which records the statistics of solving each method
+ * (see {@link SolverStats}), and delegates the solving to
+ * the solver created by given factory.
+ */
+class InstrumentedSolver<Node, Fact> implements DataflowSolver<Node, Fact> {
+
+    private final DataflowAnalysis<Node, Fact> analysis;
+
+    private final String analysisId;
+
+    private final Function<DataflowAnalysis<Node, Fact>, DataflowSolver<Node, Fact>> factory;
+
+    InstrumentedSolver(DataflowAnalysis<Node, Fact> analysis, String analysisId,
+                       Function<DataflowAnalysis<Node, Fact>, DataflowSolver<Node, Fact>> factory) {
+        this.analysis = analysis;
+        this.analysisId = analysisId;
+        this.factory = factory;
+    }
+
+    @Override
+    public NodeResult<Node, Fact> solve(CFG<Node> cfg) {
+        SolverStats stats = new SolverStats(analysisId, cfg.getMethod().toString());
+        // solvers may be shared by multiple threads, thus the solver
+        // which counts for this method is created for each solving
+        DataflowSolver<Node, Fact> solver = factory.apply(new CountingAnalysis(stats));
+        if (solver instanceof Solver<Node, Fact> baseSolver) {
+            baseSolver.stats = stats;
+        } else if (solver instanceof BlockSolver<?> blockSolver) {
+            blockSolver.stats = stats;
+        }
+        stats.start();
+        NodeResult<Node, Fact> result = solver.solve(cfg);
+        stats.stop();
+        stats.report();
+        return result;
+    }
+
+    private static int sizeOf(Object fact) {
+        if (fact instanceof SetFact<?> setFact) {
+            return setFact.size();
+        } else if (fact instanceof MapFact<?, ?> mapFact) {
+            return mapFact.keySet().size();
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Counts the transfers and meets of the analysis.
+     */
+    private class CountingAnalysis implements DataflowAnalysis<Node, Fact> {
+
+        private final SolverStats stats;
+
+        private CountingAnalysis(SolverStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public Fact newBoundaryFact(CFG<Node> cfg) {
+            return analysis.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public Fact newInitialFact() {
+            return analysis.newInitialFact();
+        }
+
+        @Override
+        public Fact newInitialFact(CFG<Node> cfg) {
+            return analysis.newInitialFact(cfg);
+        }
+
+        @Override
+        public void meetInto(Fact fact, Fact target) {
+            stats.countMeet();
+            analysis.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Node node, Fact in, Fact out) {
+            boolean changed = analysis.transferNode(node, in, out);
+            stats.countTransfer(changed);
+            stats.updateFactSize(sizeOf(analysis.isForward() ? out : in));
+            return changed;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Node> edge) {
+            return analysis.needTransferEdge(edge);
+        }
+
+        @Override
+        public Fact transferEdge(Edge<Node> edge, Fact nodeFact) {
+            return analysis.transferEdge(edge, nodeFact);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    public IterativeSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        var change = true;
+        while (change) {
+            change = false;
+            countIteration();
+            for (var node : cfg) {
+                if (cfg.isEntry(node)) {
+                    continue;
+                }
+                var inFact = result.getInFact(node);
+                for (var predecessor : cfg.getPredsOf(node)) {
+                    analysis.meetInto(result.getOutFact(predecessor), inFact);
+                }
+                if (analysis.transferNode(node, inFact, result.getOutFact(node))) {
+                    change = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        var change = true;
+        while (change) {
+            change = false;
+            countIteration();
+            for (var node : cfg) {
+                if (cfg.isExit(node)) {
+                    continue;
+                }
+                var outFact = result.getOutFact(node);
+                for (var successor : cfg.getSuccsOf(node)) {
+                    analysis.meetInto(result.getInFact(successor), outFact);
+                }
+                if (analysis.transferNode(node, result.getInFact(node), outFact)) {
+                    change = true;
+                }
+            }
+        }
+    }
+}
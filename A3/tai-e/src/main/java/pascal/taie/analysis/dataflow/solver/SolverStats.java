@@ -0,0 +1,161 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.Configs;
+import pascal.taie.util.collection.Maps;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statistics of solving a data-flow analysis for a method.
+ * <p>
+ * The statistics are reported as JSON lines to file
+ * {@code <output-dir>/<analysis-id>-solver-stats.jsonl},
+ * one line for each method.
+ */
+final class SolverStats {
+
+    private static final Logger logger = LogManager.getLogger(SolverStats.class);
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Report file of each analysis, which are closed when the World is reset.
+     */
+    private static final Map<String, PrintStream> reports = Maps.newMap();
+
+    static {
+        World.registerResetCallback(SolverStats::closeReports);
+    }
+
+    private final String analysisId;
+
+    private final String method;
+
+    /**
+     * Number of work-list pops or sweeps over the CFG.
+     */
+    private int iterations;
+
+    private int transfers;
+
+    /**
+     * Number of transfers which changed the target fact.
+     */
+    private int changes;
+
+    private int meets;
+
+    private int maxFactSize;
+
+    private long startTime;
+
+    private long elapsedTime;
+
+    SolverStats(String analysisId, String method) {
+        this.analysisId = analysisId;
+        this.method = method;
+    }
+
+    void countIteration() {
+        ++iterations;
+    }
+
+    void countTransfer(boolean changed) {
+        ++transfers;
+        if (changed) {
+            ++changes;
+        }
+    }
+
+    void countMeet() {
+        ++meets;
+    }
+
+    void updateFactSize(int size) {
+        maxFactSize = Math.max(maxFactSize, size);
+    }
+
+    void start() {
+        startTime = System.nanoTime();
+    }
+
+    void stop() {
+        elapsedTime = System.nanoTime() - startTime;
+    }
+
+    /**
+     * Appends this statistics to the report of the analysis.
+     */
+    void report() {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("analysis", analysisId);
+        record.put("method", method);
+        record.put("iterations", iterations);
+        record.put("transfers", transfers);
+        record.put("meets", meets);
+        record.put("changeRatio", transfers == 0 ? 0.0 : (double) changes / transfers);
+        record.put("maxFactSize", maxFactSize);
+        record.put("timeMs", elapsedTime / 1_000_000.0);
+        String line;
+        try {
+            line = mapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to write solver statistics", e);
+        }
+        synchronized (reports) {
+            reports.computeIfAbsent(analysisId, SolverStats::openReport)
+                    .println(line);
+        }
+    }
+
+    private static PrintStream openReport(String analysisId) {
+        File file = new File(Configs.getOutputDir(),
+                analysisId + "-solver-stats.jsonl");
+        logger.info("Dumping solver statistics of {} to {}",
+                analysisId, file.getAbsolutePath());
+        try {
+            return new PrintStream(new FileOutputStream(file), true);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Failed to open output file", e);
+        }
+    }
+
+    private static void closeReports() {
+        synchronized (reports) {
+            reports.values().forEach(PrintStream::close);
+            reports.clear();
+        }
+    }
+}
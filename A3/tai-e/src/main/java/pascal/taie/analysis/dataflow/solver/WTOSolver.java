@@ -0,0 +1,154 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.WeakTopologicalOrder.Component;
+import pascal.taie.analysis.dataflow.solver.WeakTopologicalOrder.Element;
+import pascal.taie.analysis.dataflow.solver.WeakTopologicalOrder.Vertex;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Solver which follows the recursive iteration strategy of Bourdoncle
+ * on the weak topological order of the CFG (of the reversed CFG for
+ * backward analyses), see {@link WeakTopologicalOrder}.
+ * <p>
+ * The elements of the order are processed in turn, and each component
+ * is iterated until its head gets stable, before the elements after it
+ * are processed. Thus, an inner loop gets stable in each iteration of
+ * the outer loop, and the nodes after a loop are processed only once
+ * the loop gets stable.
+ */
+class WTOSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    WTOSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        doSolveForward(cfg, result, null);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                  Collection<Node> nodes) {
+        new Iteration(cfg, result, nodes, true)
+                .stabilize(WeakTopologicalOrder.of(cfg, List.of(cfg.getEntry()), true)
+                        .getElements());
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        doSolveBackward(cfg, result, null);
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                   Collection<Node> nodes) {
+        new Iteration(cfg, result, nodes, false)
+                .stabilize(WeakTopologicalOrder.of(cfg, List.of(cfg.getExit()), false)
+                        .getElements());
+    }
+
+    private class Iteration {
+
+        private final CFG<Node> cfg;
+
+        private final DataflowResult<Node, Fact> result;
+
+        /**
+         * Nodes to be solved, or null if all nodes are solved.
+         */
+        private final Set<Node> nodes;
+
+        private final boolean forward;
+
+        private Iteration(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                          Collection<Node> nodes, boolean forward) {
+            this.cfg = cfg;
+            this.result = result;
+            if (nodes != null) {
+                this.nodes = Sets.newSet(nodes.size());
+                this.nodes.addAll(nodes);
+            } else {
+                this.nodes = null;
+            }
+            this.forward = forward;
+        }
+
+        private void stabilize(List<Element<Node>> elements) {
+            for (Element<Node> element : elements) {
+                if (element instanceof Component<Node> component) {
+                    // the first iteration always goes through the component,
+                    // and the later ones only if the head changed
+                    update(component.head());
+                    do {
+                        stabilize(component.elements());
+                    } while (update(component.head()));
+                } else {
+                    update(((Vertex<Node>) element).node());
+                }
+            }
+        }
+
+        /**
+         * Meets the facts of the neighbors into given node,
+         * and applies the transfer function of the node.
+         *
+         * @return true if the fact of the node changed, otherwise false.
+         */
+        private boolean update(Node node) {
+            if (nodes != null && !nodes.contains(node)) {
+                return false;
+            }
+            if (forward) {
+                if (cfg.isEntry(node)) {
+                    return false;
+                }
+                countIteration();
+                Fact in = result.getInFact(node);
+                for (Node pred : cfg.getPredsOf(node)) {
+                    analysis.meetInto(result.getOutFact(pred), in);
+                }
+                return analysis.transferNode(node, in, result.getOutFact(node));
+            } else {
+                if (cfg.isExit(node)) {
+                    return false;
+                }
+                countIteration();
+                Fact out = result.getOutFact(node);
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    analysis.meetInto(result.getInFact(succ), out);
+                }
+                return analysis.transferNode(node, result.getInFact(node), out);
+            }
+        }
+    }
+}
@@ -26,8 +26,18 @@ import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.List;
 
+/**
+ * Work-list solver which schedules nodes in reverse postorder of the CFG
+ * (of the reversed CFG for backward analyses), see {@link WorkList},
+ * and only re-enqueues the neighbors of the nodes whose facts changed.
+ * When a node is processed, only the facts of the neighbors that changed
+ * since its last processing are met, see {@link DirtyEdges}.
+ * When re-solving incrementally, the work list is seeded with
+ * the affected nodes only.
+ */
 class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
     WorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
@@ -36,46 +46,67 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
-        LinkedList<Node> list = new LinkedList<>();
-        for (Node node : cfg) {
-            if (cfg.isEntry(node)) {
-                continue;
+        doSolveForward(cfg, result, cfg.getNodes());
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                  Collection<Node> nodes) {
+        WorkList<Node> workList = new WorkList<>(cfg, List.of(cfg.getEntry()), true);
+        DirtyEdges<Node, Node> changedPreds = new DirtyEdges<>();
+        for (Node node : nodes) {
+            if (!cfg.isEntry(node)) {
+                workList.add(node);
             }
-            list.add(node);
         }
-        while (!list.isEmpty()) {
-            var node = list.pop();
-
-            for (var n : cfg.getPredsOf(node)) {
-                analysis.meetInto(result.getOutFact(n), result.getInFact(node));
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            countIteration();
+            Fact in = result.getInFact(node);
+            for (Node pred : changedPreds.take(node, cfg.getPredsOf(node))) {
+                analysis.meetInto(result.getOutFact(pred), in);
             }
-            if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
-                list.addAll(cfg.getSuccsOf(node));
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    if (!cfg.isEntry(succ)) {
+                        workList.add(succ);
+                        changedPreds.mark(succ, node);
+                    }
+                }
             }
         }
     }
 
     @Override
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
-        LinkedList<Node> list = new LinkedList<>();
-        for (Node node : cfg) {
-            if (cfg.isExit(node)) {
-                continue;
+        doSolveBackward(cfg, result, cfg.getNodes());
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                   Collection<Node> nodes) {
+        WorkList<Node> workList = new WorkList<>(cfg, List.of(cfg.getExit()), false);
+        DirtyEdges<Node, Node> changedSuccs = new DirtyEdges<>();
+        for (Node node : nodes) {
+            if (!cfg.isExit(node)) {
+                workList.add(node);
             }
-            list.add(node);
         }
-        while (!list.isEmpty()) {
-            var node = list.pop();
-            for (var n : cfg.getSuccsOf(node)) {
-                analysis.meetInto(result.getInFact(n), result.getOutFact(node));
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            countIteration();
+            Fact out = result.getOutFact(node);
+            for (Node succ : changedSuccs.take(node, cfg.getSuccsOf(node))) {
+                analysis.meetInto(result.getInFact(succ), out);
             }
-            if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
-                list.addAll(cfg.getPredsOf(node));
+            if (analysis.transferNode(node, result.getInFact(node), out)) {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    if (!cfg.isExit(pred)) {
+                        workList.add(pred);
+                        changedSuccs.mark(pred, node);
+                    }
+                }
             }
         }
-
-
     }
 }
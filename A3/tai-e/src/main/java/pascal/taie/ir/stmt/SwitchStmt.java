@@ -24,9 +24,11 @@ package pascal.taie.ir.stmt;
 
 import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Pair;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Representation of switch statement, e.g.,
@@ -53,6 +55,12 @@ public abstract class SwitchStmt extends JumpStmt {
      */
     protected Stmt defaultTarget;
 
+    /**
+     * Map from case values to the corresponding jump targets, which is
+     * built on the first call of {@link #getCaseTarget(int)}.
+     */
+    private Map<Integer, Stmt> caseTargetMap;
+
     public SwitchStmt(Var var) {
         this.var = var;
     }
@@ -74,6 +82,28 @@ public abstract class SwitchStmt extends JumpStmt {
 
     public void setTargets(List<Stmt> targets) {
         this.targets = List.copyOf(targets);
+        caseTargetMap = null;
+    }
+
+    /**
+     * @return the jump target for given case value, or null if no case
+     * matches the value, i.e., the switch-statement jumps to the default
+     * target. Unlike scanning {@link #getCaseTargets()}, this method
+     * takes constant time, as the targets are looked up in a map
+     * that is built once for each switch-statement.
+     */
+    public Stmt getCaseTarget(int caseValue) {
+        Map<Integer, Stmt> map = caseTargetMap;
+        if (map == null) {
+            List<Integer> caseValues = getCaseValues();
+            Map<Integer, Stmt> targetMap = Maps.newMap(caseValues.size());
+            for (int i = 0; i < caseValues.size(); ++i) {
+                targetMap.put(caseValues.get(i), targets.get(i));
+            }
+            // the immutable copy is safely published to other threads
+            map = caseTargetMap = Map.copyOf(targetMap);
+        }
+        return map.get(caseValue);
     }
 
     /**
@@ -0,0 +1,278 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Compact hash index of the lines of a text file, e.g., a file of
+ * expected analysis results.
+ * <p>
+ * The file is read once, and each line is given to an {@link Indexer},
+ * which adds entries for the line. An entry only consists of a 64-bit
+ * hash of a key, a 64-bit hash of a value, and the position of the line
+ * in the file, thus the memory of the index does not depend on the length
+ * of the lines. Results are compared by the hashes, and the text of a line
+ * is read from the file again only when it is needed, e.g., to report a
+ * mismatch. Different strings with the same 64-bit hash are deemed equal,
+ * which is negligible for the purpose of comparing results.
+ * <p>
+ * Entries are identified by consecutive ints in the order they are added.
+ * Entries with the same key are chained, from the last one to the first.
+ */
+public class LineIndex {
+
+    private static final int NONE = -1;
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Path file;
+
+    private long[] keys = EMPTY;
+
+    private long[] values = EMPTY;
+
+    private long[] positions = EMPTY;
+
+    /**
+     * Previous entry with the same key hash bucket.
+     */
+    private int[] nexts = new int[0];
+
+    /**
+     * Last entry of each hash bucket.
+     */
+    private int[] buckets = new int[0];
+
+    private int size;
+
+    /**
+     * Position of the line being indexed.
+     */
+    private long position;
+
+    private LineIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Adds the entries of a line to the index.
+     */
+    @FunctionalInterface
+    public interface Indexer {
+
+        /**
+         * Called for each line of the file, in order.
+         *
+         * @param line  the line without line terminator
+         * @param index the index to which the entries of the line are added
+         */
+        void index(String line, LineIndex index);
+    }
+
+    /**
+     * Reads given UTF-8 file once, and builds the index of its lines.
+     */
+    public static LineIndex build(Path file, Indexer indexer) throws IOException {
+        LineIndex index = new LineIndex(file);
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] chunk = new byte[1 << 16];
+            byte[] line = new byte[256];
+            int length = 0;
+            long start = 0;
+            long offset = 0;
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                for (int i = 0; i < n; ++i, ++offset) {
+                    if (chunk[i] == '\n') {
+                        index.position = start;
+                        indexer.index(decode(line, length), index);
+                        length = 0;
+                        start = offset + 1;
+                    } else {
+                        if (length == line.length) {
+                            line = Arrays.copyOf(line, length * 2);
+                        }
+                        line[length++] = chunk[i];
+                    }
+                }
+            }
+            if (length > 0) {
+                index.position = start;
+                indexer.index(decode(line, length), index);
+            }
+        }
+        return index;
+    }
+
+    private static String decode(byte[] bytes, int length) {
+        if (length > 0 && bytes[length - 1] == '\r') {
+            --length;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds an entry for the line being indexed.
+     * Shall only be called by {@link Indexer}s.
+     *
+     * @return the added entry.
+     */
+    public int add(long key, long value) {
+        if (size == keys.length) {
+            grow();
+        }
+        keys[size] = key;
+        values[size] = value;
+        positions[size] = position;
+        int bucket = bucketOf(key);
+        nexts[size] = buckets[bucket];
+        buckets[bucket] = size;
+        return size++;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, keys.length * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        nexts = Arrays.copyOf(nexts, capacity);
+        // rehash entries in order, so that the chains keep
+        // going from the last entry to the first one
+        buckets = new int[capacity];
+        Arrays.fill(buckets, NONE);
+        for (int i = 0; i < size; ++i) {
+            int bucket = bucketOf(keys[i]);
+            nexts[i] = buckets[bucket];
+            buckets[bucket] = i;
+        }
+    }
+
+    private int bucketOf(long key) {
+        return (int) (key ^ (key >>> 32)) & (buckets.length - 1);
+    }
+
+    /**
+     * @return the number of entries in this index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the last entry with given key, or -1 if no such entry.
+     */
+    public int find(long key) {
+        return size == 0 ? NONE : skipTo(buckets[bucketOf(key)], key);
+    }
+
+    /**
+     * @return the entry with the same key that is added before given entry,
+     * or -1 if no such entry.
+     */
+    public int findPrevious(int entry) {
+        return skipTo(nexts[entry], keys[entry]);
+    }
+
+    private int skipTo(int entry, long key) {
+        while (entry != NONE && keys[entry] != key) {
+            entry = nexts[entry];
+        }
+        return entry;
+    }
+
+    public long getKey(int entry) {
+        return keys[entry];
+    }
+
+    public long getValue(int entry) {
+        return values[entry];
+    }
+
+    /**
+     * Reads the line of given entry from the file.
+     */
+    public String readLine(int entry) {
+        try (FileChannel channel = FileChannel.open(file)) {
+            long pos = positions[entry];
+            ByteBuffer buffer = ByteBuffer.allocate(256);
+            while (channel.read(buffer, pos + buffer.position()) > 0) {
+                for (int i = 0; i < buffer.position(); ++i) {
+                    if (buffer.get(i) == '\n') {
+                        return decode(buffer.array(), i);
+                    }
+                }
+                if (!buffer.hasRemaining()) {
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+            }
+            return decode(buffer.array(), buffer.position());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + file, e);
+        }
+    }
+
+    /**
+     * @return 64-bit hash of given string.
+     */
+    public static long hash(CharSequence s) {
+        return hash(s, 0, s.length());
+    }
+
+    /**
+     * @return 64-bit hash of the chars of given string
+     * from {@code start} (inclusive) to {@code end} (exclusive).
+     */
+    public static long hash(CharSequence s, int start, int end) {
+        // FNV-1a over chars, followed by a final mix to
+        // spread the bits of short strings
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < end; ++i) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * @return 64-bit hash of a pair of hashes.
+     */
+    public static long combine(long h1, long h2) {
+        return mix(h1 * 0x9e3779b97f4a7c15L + h2);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.SyntheticPrograms.Shape;
+import pascal.taie.analysis.dataflow.analysis.DeadCodeDetection;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Checks that live variable analysis, constant propagation and dead code
+ * detection scale linearly with the size of methods, by analyzing
+ * synthetic programs (see {@link SyntheticPrograms}) whose sizes grow
+ * from 10^2 to 10^5 statements.
+ * <p>
+ * The time and the peak heap of each analysis on each size are appended
+ * to {@link #REPORT}, and a test fails when the time or peak heap grows
+ * much faster than the size. This suite is slow, thus it is excluded
+ * from task "test" and run by task "scalingTest" (see build.gradle.kts).
+ * <p>
+ * Constant propagation is measured with persistent facts, whose copies
+ * at adjacent statements share their tries. Dense constant propagation,
+ * which keeps a whole CPFact at each statement, is known to be quadratic,
+ * see {@link #testDenseConstantPropagation()}.
+ */
+public class ScalingTest {
+
+    private static final int[] SIZES = {100, 1_000, 10_000, 100_000};
+
+    /**
+     * Maximum growth of time or peak heap of a linear analysis when
+     * the size grows 10 times. Linear growth is 10, and the slack tolerates
+     * n*log(n) behaviors and noise, but not quadratic ones.
+     */
+    private static final double MAX_GROWTH = 40;
+
+    /**
+     * Times below this threshold are dominated by noise, and
+     * are not checked for growth.
+     */
+    private static final double MIN_CHECKED_MILLIS = 20;
+
+    /**
+     * Peak heap below this threshold is dominated by noise,
+     * and is not checked for growth.
+     */
+    private static final long MIN_CHECKED_BYTES = 256 << 10;
+
+    /**
+     * Number of runs of each analysis on each size,
+     * where the fastest run is taken.
+     */
+    private static final int RUNS = 3;
+
+    private static final Path REPORT = Path.of("output", "scaling-report.csv");
+
+    @Test
+    public void testStraight() {
+        testScaling("straight", size -> Shape.of(size, 0, 0, 64),
+                ScalingTest::makeAnalyses);
+    }
+
+    @Test
+    public void testLoops() {
+        testScaling("loops", size -> Shape.of(size, 8, 0, 64),
+                ScalingTest::makeAnalyses);
+    }
+
+    @Test
+    public void testSwitch() {
+        testScaling("switch", size -> Shape.of(size, 0, 1_000, 64),
+                ScalingTest::makeAnalyses);
+    }
+
+    @Test
+    public void testMixed() {
+        testScaling("mixed", size -> Shape.of(size, 4, 100, 256),
+                ScalingTest::makeAnalyses);
+    }
+
+    /**
+     * Dense constant propagation keeps a whole CPFact at each statement,
+     * and the number of int variables grows with the size of the method,
+     * thus its peak heap is quadratic. Use "fact: persistent",
+     * "mode: sparse" or "granularity: block" for large methods.
+     * Un-ignore this test once dense facts share their mappings.
+     */
+    @Ignore("dense constant propagation is quadratic in the size of methods")
+    @Test
+    public void testDenseConstantPropagation() {
+        testScaling("straight", size -> Shape.of(size, 0, 0, 64),
+                () -> Map.of("constprop-dense", new ConstantPropagation(
+                        new AnalysisConfig(ConstantPropagation.ID,
+                                "edge-refine", false))));
+    }
+
+    /**
+     * @return the analyses checked by the scaling suite, keyed by the
+     * labels in the report. They are created after the world is built,
+     * and are run in order, as dead code detection reads the results of
+     * the other two analyses.
+     */
+    private static Map<String, MethodAnalysis> makeAnalyses() {
+        Map<String, MethodAnalysis> analyses = new LinkedHashMap<>();
+        analyses.put(LiveVariableAnalysis.ID, new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID, "strongly", false)));
+        analyses.put(ConstantPropagation.ID, new ConstantPropagation(
+                new AnalysisConfig(ConstantPropagation.ID,
+                        "edge-refine", false, "fact", "persistent")));
+        analyses.put(DeadCodeDetection.ID, new DeadCodeDetection(
+                new AnalysisConfig(DeadCodeDetection.ID)));
+        // fused dead code detection runs the other two analyses by itself
+        analyses.put("deadcode-fused", new DeadCodeDetection(
+                new AnalysisConfig(DeadCodeDetection.ID, "fused", true)));
+        return analyses;
+    }
+
+    /**
+     * Measures the analyses on growing sizes, and stops at the first size
+     * where some analysis grows too fast, as the larger sizes would
+     * take even longer, or exhaust the heap.
+     */
+    private static void testScaling(String name, IntFunction<Shape> shapes,
+                                    Supplier<Map<String, MethodAnalysis>> analyses) {
+        List<String> failures = new ArrayList<>();
+        List<Measurement> previous = null;
+        for (int size : SIZES) {
+            List<Measurement> current = measure(name, size, shapes.apply(size), analyses);
+            report(current);
+            if (previous != null) {
+                for (int i = 0; i < current.size(); ++i) {
+                    checkGrowth(previous.get(i), current.get(i), failures);
+                }
+                if (!failures.isEmpty()) {
+                    break;
+                }
+            }
+            previous = current;
+        }
+        Assert.assertTrue("Super-linear growth on \"" + name + "\":\n" +
+                String.join("\n", failures), failures.isEmpty());
+    }
+
+    private static void checkGrowth(Measurement small, Measurement large,
+                                    List<String> failures) {
+        double maxGrowth = MAX_GROWTH / 10 * large.stmts() / small.stmts();
+        if (small.millis() >= MIN_CHECKED_MILLIS &&
+                large.millis() / small.millis() > maxGrowth) {
+            failures.add(String.format("%s: time %.1fms -> %.1fms (%d -> %d stmts)",
+                    large.analysis(), small.millis(), large.millis(),
+                    small.stmts(), large.stmts()));
+        }
+        if (small.peakHeap() >= MIN_CHECKED_BYTES &&
+                (double) large.peakHeap() / small.peakHeap() > maxGrowth) {
+            failures.add(String.format("%s: peak heap %dB -> %dB (%d -> %d stmts)",
+                    large.analysis(), small.peakHeap(), large.peakHeap(),
+                    small.stmts(), large.stmts()));
+        }
+    }
+
+    /**
+     * Builds the world for the synthetic program of given shape,
+     * and measures the analyses on its methods.
+     */
+    private static List<Measurement> measure(String name, int size, Shape shape,
+                                             Supplier<Map<String, MethodAnalysis>> analyses) {
+        try {
+            Path dir = Files.createTempDirectory("tai-e-scaling");
+            SyntheticPrograms.write(dir, shape);
+            Main.main(new String[]{
+                    "-pp", "-cp", dir.toString(), "-m", SyntheticPrograms.CLASS_NAME,
+                    "-a", CFGBuilder.ID + "=exception:explicit;dump:false",
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        List<IR> irs = World.get()
+                .getClassHierarchy()
+                .getClass(SyntheticPrograms.CLASS_NAME)
+                .getDeclaredMethods()
+                .stream()
+                .map(JMethod::getIR)
+                .toList();
+        int stmts = irs.stream().mapToInt(ir -> ir.getStmts().size()).sum();
+        List<Measurement> measurements = new ArrayList<>();
+        analyses.get().forEach((label, analysis) ->
+                measurements.add(measure(name, size, stmts, irs, analysis, label)));
+        return measurements;
+    }
+
+    /**
+     * Measures given analysis on given IRs. The peak heap of a run is the
+     * growth of the peak usages of the heap pools (see
+     * {@link MemoryPoolMXBean#getPeakUsage()}) over their usages at
+     * the start of the run, which covers the results of the analysis
+     * and the garbage it creates, without forcing garbage collections.
+     */
+    private static Measurement measure(String name, int size, int stmts,
+                                       List<IR> irs, MethodAnalysis analysis,
+                                       String label) {
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans()
+                .stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        double millis = Double.MAX_VALUE;
+        long peakHeap = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; ++i) {
+            irs.forEach(ir -> ir.clearResult(analysis.getId()));
+            pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            long usedBefore = pools.stream()
+                    .mapToLong(pool -> pool.getUsage().getUsed())
+                    .sum();
+            long start = System.nanoTime();
+            for (IR ir : irs) {
+                ir.storeResult(analysis.getId(), analysis.analyze(ir));
+            }
+            millis = Math.min(millis, (System.nanoTime() - start) / 1e6);
+            long peakUsed = pools.stream()
+                    .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                    .sum();
+            peakHeap = Math.min(peakHeap, Math.max(0, peakUsed - usedBefore));
+        }
+        return new Measurement(name, label, size, stmts, millis, peakHeap);
+    }
+
+    private static void report(List<Measurement> measurements) {
+        try {
+            Files.createDirectories(REPORT.getParent());
+            boolean exists = Files.exists(REPORT);
+            try (PrintStream out = new PrintStream(Files.newOutputStream(REPORT,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                if (!exists) {
+                    out.println("shape,analysis,size,stmts,timeMs,peakHeapBytes");
+                }
+                for (Measurement m : measurements) {
+                    out.printf("%s,%s,%d,%d,%.3f,%d%n", m.shape(), m.analysis(),
+                            m.size(), m.stmts(), m.millis(), m.peakHeap());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param size     number of statements of the synthetic program
+     * @param stmts    number of statements of the IRs of the program
+     * @param peakHeap peak heap during the analysis, including garbage
+     */
+    private record Measurement(String shape, String analysis, int size,
+                               int stmts, double millis, long peakHeap) {
+    }
+}
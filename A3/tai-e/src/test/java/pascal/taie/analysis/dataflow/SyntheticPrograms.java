@@ -0,0 +1,269 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates synthetic programs whose methods have CFGs of specific shapes.
+ * Each program consists of a single class with method {@code run(int)},
+ * and the shape of the method is one of
+ * <ul>
+ *     <li>"loops": loop nest of depth {@code size}</li>
+ *     <li>"switch": switch with {@code size * 8} cases</li>
+ *     <li>"straight": straight-line code of {@code size * 32} statements</li>
+ * </ul>
+ * or is described by a {@link Shape}, which mixes straight-line code,
+ * loop nests and switches up to a given number of statements.
+ */
+final class SyntheticPrograms {
+
+    /**
+     * Tunable shape of the methods of a synthetic program.
+     * <p>
+     * The code is made of segments of straight-line code, loop nests and
+     * switches in turn, until the number of statements is reached.
+     * Each statement reads and writes the int temporaries,
+     * thus they are live across the code.
+     * <p>
+     * Javac rejects methods whose bytecode exceeds 64KB, i.e., roughly
+     * more than a few thousand statements, hence the code is split into
+     * methods of at most {@code methodStatements} statements, which are
+     * called by {@code run(int)}. The programs are parsed from source by
+     * Tai-e, thus larger methods can still be analyzed.
+     *
+     * @param statements       total number of statements
+     * @param loopDepth        depth of each loop nest, 0 for no loops
+     * @param switchCases      number of cases of each switch, 0 for no switches
+     * @param temps            number of int temporaries of each method
+     * @param methodStatements maximum number of statements of each method
+     */
+    record Shape(int statements, int loopDepth, int switchCases,
+                 int temps, int methodStatements) {
+
+        Shape {
+            if (statements <= 0 || loopDepth < 0 || switchCases < 0
+                    || temps <= 0 || methodStatements <= 0) {
+                throw new IllegalArgumentException("Illegal shape: " +
+                        statements + ", " + loopDepth + ", " + switchCases +
+                        ", " + temps + ", " + methodStatements);
+            }
+        }
+
+        /**
+         * @return the shape whose statements are in a single method.
+         */
+        static Shape of(int statements, int loopDepth, int switchCases, int temps) {
+            return new Shape(statements, loopDepth, switchCases, temps, statements);
+        }
+    }
+
+    /**
+     * Number of statements of each segment of straight-line code.
+     */
+    private static final int SEGMENT_LENGTH = 16;
+
+    static final String CLASS_NAME = "Synthetic";
+
+    private SyntheticPrograms() {
+    }
+
+    /**
+     * Writes the source file of the synthetic program to given directory.
+     */
+    static void write(Path dir, String shape, int size) throws IOException {
+        Files.writeString(dir.resolve(CLASS_NAME + ".java"), generate(shape, size));
+    }
+
+    /**
+     * Writes the source file of the synthetic program of given shape
+     * to given directory.
+     */
+    static void write(Path dir, Shape shape) throws IOException {
+        Files.writeString(dir.resolve(CLASS_NAME + ".java"), generate(shape));
+    }
+
+    static String generate(String shape, int size) {
+        StringBuilder code = new StringBuilder();
+        code.append("class ").append(CLASS_NAME).append(" {\n\n")
+                .append("    int run(int n) {\n");
+        switch (shape) {
+            case "loops" -> loops(code, size);
+            case "switch" -> switchCases(code, size * 8);
+            case "straight" -> straightLine(code, size * 32);
+            default -> throw new IllegalArgumentException(
+                    "Unknown shape: " + shape);
+        }
+        code.append("    }\n}\n");
+        return code.toString();
+    }
+
+    private static void loops(StringBuilder code, int depth) {
+        code.append("int x = 0;\n");
+        for (int i = 0; i < depth; ++i) {
+            String bound = i == 0 ? "n" : "i" + (i - 1);
+            code.append(String.format("int c%d = %d;\n", i, i));
+            code.append(String.format(
+                    "for (int i%d = 0; i%d < %s; i%d++) {\n", i, i, bound, i));
+            code.append(String.format("x = x + c%d;\n", i));
+        }
+        code.append(String.format("x = x * i%d;\n", depth - 1));
+        code.append("}\n".repeat(depth));
+        code.append("return x;\n");
+    }
+
+    private static void switchCases(StringBuilder code, int cases) {
+        code.append("int x = 0;\nint y = 1;\nswitch (n) {\n");
+        for (int i = 0; i < cases; ++i) {
+            code.append(String.format("case %d: x = y + %d; y = %d; break;\n",
+                    i, i, i));
+        }
+        code.append("default: x = -1;\n}\n");
+        code.append("return x + y;\n");
+    }
+
+    private static void straightLine(StringBuilder code, int length) {
+        code.append("int v0 = n;\n");
+        for (int i = 1; i < length; ++i) {
+            if (i % 4 == 0) {
+                code.append(String.format("int v%d = %d;\n", i, i));
+            } else {
+                code.append(String.format("int v%d = v%d * 3 + v%d;\n",
+                        i, i - 1, i / 2));
+            }
+        }
+        code.append(String.format("return v%d;\n", length - 1));
+    }
+
+    static String generate(Shape shape) {
+        // fixed seed, so that the same shape always yields the same program
+        Random random = new Random(shape.statements());
+        StringBuilder code = new StringBuilder();
+        code.append("class ").append(CLASS_NAME).append(" {\n");
+        StringBuilder run = new StringBuilder("    int run(int n) {\n        int r = 0;\n");
+        int parts = 0;
+        for (int remaining = shape.statements(); remaining > 0; ++parts) {
+            int statements = Math.min(remaining, shape.methodStatements());
+            code.append("\n    int part").append(parts).append("(int n) {\n");
+            method(code, shape, statements, random);
+            code.append("    }\n");
+            run.append("        r += part").append(parts).append("(n);\n");
+            remaining -= statements;
+        }
+        run.append("        return r;\n    }\n");
+        code.append('\n').append(run).append("}\n");
+        return code.toString();
+    }
+
+    /**
+     * Generates the body of a method with given number of statements.
+     */
+    private static void method(StringBuilder code, Shape shape,
+                               int statements, Random random) {
+        int temps = shape.temps();
+        code.append("int t0 = n;\n");
+        for (int i = 1; i < temps; ++i) {
+            code.append(String.format("int t%d = %d;\n", i, i));
+        }
+        int count = temps;
+        for (int block = 0; count < statements; ++block) {
+            int remaining = statements - count;
+            switch (block % 3) {
+                case 1 -> {
+                    if (shape.loopDepth() > 0) {
+                        count += loopNest(code, block, shape.loopDepth(),
+                                temps, remaining, random);
+                    }
+                }
+                case 2 -> {
+                    if (shape.switchCases() > 0) {
+                        count += switchBlock(code, shape.switchCases(),
+                                temps, remaining, random);
+                    }
+                }
+                default -> count += segment(code,
+                        Math.min(SEGMENT_LENGTH, remaining), temps, random);
+            }
+        }
+        code.append(String.format("return t0 + t%d;\n", temps - 1));
+    }
+
+    private static int segment(StringBuilder code, int length,
+                               int temps, Random random) {
+        for (int i = 0; i < length; ++i) {
+            code.append(assignment(i, temps, random));
+        }
+        return length;
+    }
+
+    /**
+     * @return a statement that assigns a temporary, which is
+     * a constant for every fourth statement.
+     */
+    private static String assignment(int i, int temps, Random random) {
+        int target = random.nextInt(temps);
+        if (i % 4 == 0) {
+            return String.format("t%d = %d;\n", target, i);
+        }
+        return String.format("t%d = t%d * 3 + t%d;\n", target,
+                random.nextInt(temps), random.nextInt(temps));
+    }
+
+    /**
+     * Generates a loop nest, whose loops count the statements.
+     * The loop variables are named after the block to be unique.
+     */
+    private static int loopNest(StringBuilder code, int block, int depth,
+                                int temps, int remaining, Random random) {
+        int bodyLength = Math.max(1, Math.min(4, remaining - depth));
+        for (int i = 0; i < depth; ++i) {
+            String var = "i" + block + "_" + i;
+            String bound = i == 0 ? "n" : "i" + block + "_" + (i - 1);
+            code.append(String.format("for (int %s = 0; %s < %s; %s++) {\n",
+                    var, var, bound, var));
+        }
+        segment(code, bodyLength, temps, random);
+        code.append("}\n".repeat(depth));
+        return depth + bodyLength;
+    }
+
+    /**
+     * Generates a switch on a temporary with at most given number of cases.
+     */
+    private static int switchBlock(StringBuilder code, int cases,
+                                   int temps, int remaining, Random random) {
+        int n = Math.max(1, Math.min(cases, remaining - 1));
+        code.append(String.format("switch (t%d) {\n", random.nextInt(temps)));
+        for (int i = 0; i < n; ++i) {
+            code.append("case ").append(i).append(": ")
+                    .append(assignment(i + 1, temps, random).stripTrailing())
+                    .append(" break;\n");
+        }
+        code.append("default: ").append(assignment(1, temps, random));
+        code.append("}\n");
+        return n + 2;
+    }
+}
@@ -22,16 +22,30 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Collection;
 
 public class DeadCodeTest {
 
+    private static final String CLASS_PATH = "src/test/resources/dataflow/deadcode/";
+
     void testDCD(String inputClass) {
-        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+        testDCD(inputClass, "edge-refine:false");
+    }
+
+    void testDCD(String inputClass, String cpOpts) {
+        Tests.test(inputClass, CLASS_PATH,
                 DeadCodeDetection.ID,
                 "-a", "livevar=strongly:false",
-                "-a", "constprop=edge-refine:false");
+                "-a", "constprop=" + cpOpts);
     }
 
     @Test
@@ -44,18 +58,104 @@ public class DeadCodeTest {
         testDCD("UnreachableIfBranch");
     }
 
+    @Test
+    public void testUnreachableIfBranchSparse() {
+        testDCD("UnreachableIfBranch", "edge-refine:false;mode:sparse");
+    }
+
     @Test
     public void testUnreachableSwitchBranch() {
         testDCD("UnreachableSwitchBranch");
     }
 
+    @Test
+    public void testUnreachableSwitchBranchSparse() {
+        testDCD("UnreachableSwitchBranch", "edge-refine:false;mode:sparse");
+    }
+
     @Test
     public void testDeadAssignment() {
         testDCD("DeadAssignment");
     }
 
+    @Test
+    public void testDeadAssignmentSparse() {
+        testDCD("DeadAssignment", "edge-refine:false;mode:sparse");
+    }
+
     @Test
     public void testLoops() {
         testDCD("Loops");
     }
+
+    @Test
+    public void testLoopsSparse() {
+        testDCD("Loops", "edge-refine:false;mode:sparse");
+    }
+
+    @Test
+    public void testNonIntComparison() {
+        testDCD("NonIntComparison");
+    }
+
+    @Test
+    public void testNonIntComparisonSparse() {
+        testDCD("NonIntComparison", "edge-refine:false;mode:sparse");
+    }
+
+    void testFused(String inputClass) {
+        testFused(inputClass, "strongly:false", "edge-refine:false");
+    }
+
+    /**
+     * The options of dead code detection are not configurable from
+     * the command line, thus the fused mode is checked against the
+     * results of the planned analyses, whose options are also taken
+     * by the analyses run in the fused mode.
+     */
+    void testFused(String inputClass, String livevarOpts, String constpropOpts) {
+        Main.main(new String[]{
+                "-pp", "-cp", CLASS_PATH, "-m", inputClass,
+                "-a", "livevar=" + livevarOpts,
+                "-a", "constprop=" + constpropOpts,
+                "-a", DeadCodeDetection.ID,
+        });
+        DeadCodeDetection fused = new DeadCodeDetection(
+                new AnalysisConfig(DeadCodeDetection.ID, "fused", true));
+        Collection<JMethod> methods = World.get().getClassHierarchy()
+                .getClass(inputClass).getDeclaredMethods();
+        for (JMethod method : methods) {
+            IR ir = method.getIR();
+            Assert.assertEquals(method.toString(),
+                    ir.getResult(DeadCodeDetection.ID), fused.analyze(ir));
+        }
+        // methods analyzed in parallel allocate their facts
+        // from the fact arenas of different threads
+        methods.parallelStream().forEach(method -> {
+            IR ir = method.getIR();
+            Assert.assertEquals(method.toString(),
+                    ir.getResult(DeadCodeDetection.ID), fused.analyze(ir));
+        });
+    }
+
+    @Test
+    public void testFused() {
+        testFused("ControlFlowUnreachable");
+        testFused("UnreachableIfBranch");
+        testFused("UnreachableSwitchBranch");
+        testFused("DeadAssignment");
+        testFused("Loops");
+        // static methods may have no variables at all
+        testFused("StaticMethods");
+    }
+
+    @Test
+    public void testFusedWithOptions() {
+        testFused("DeadAssignment",
+                "strongly:false;fact:set;solver:wto",
+                "edge-refine:false;fact:persistent;storage:boundary");
+        testFused("Loops",
+                "strongly:false;mode:sparse",
+                "edge-refine:false;solver:iterative");
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Checks the open-addressing hash table of {@link CPFact}.
+ */
+public class CPFactTest {
+
+    static Var newVar(String name, int index) {
+        return new Var(null, name, PrimitiveType.INT, index);
+    }
+
+    /**
+     * Checks that given fact has exactly the given mappings.
+     */
+    static void assertMappings(Map<Var, Value> expected, CPFact fact) {
+        Assert.assertEquals(expected.size(), fact.keySet().size());
+        expected.forEach((var, value) -> {
+            Assert.assertEquals(var.toString(), value, fact.get(var));
+            Assert.assertTrue(var.toString(), fact.keySet().contains(var));
+        });
+        Map<Var, Value> actual = new HashMap<>();
+        fact.forEach(actual::put);
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testBackwardShiftRemove() {
+        // a, b and c have the same home slot in the initial table of
+        // 8 slots, and d is displaced by them from its home slot
+        Var a = newVar("a", 1);
+        Var b = newVar("b", 9);
+        Var c = newVar("c", 17);
+        Var d = newVar("d", 2);
+        Map<Var, Value> expected = new HashMap<>();
+        CPFact fact = new CPFact();
+        int i = 0;
+        for (Var var : List.of(a, b, c, d)) {
+            Value value = Value.makeConstant(i++);
+            fact.update(var, value);
+            expected.put(var, value);
+        }
+        assertMappings(expected, fact);
+        // removing the middle of the probe sequence shifts back c and d
+        Assert.assertEquals(expected.remove(b), fact.remove(b));
+        assertMappings(expected, fact);
+        Assert.assertNull(fact.remove(b));
+        // removing the head of the probe sequence
+        Assert.assertEquals(expected.remove(a), fact.remove(a));
+        assertMappings(expected, fact);
+        // setting UNDEF also removes the variable
+        Assert.assertTrue(fact.update(d, Value.getUndef()));
+        expected.remove(d);
+        assertMappings(expected, fact);
+        // the remaining mapping does not depend on the history
+        CPFact fresh = new CPFact();
+        fresh.update(c, expected.get(c));
+        Assert.assertEquals(fresh, fact);
+        Assert.assertEquals(fresh.hashCode(), fact.hashCode());
+    }
+
+    @Test
+    public void testResize() {
+        List<Var> vars = IntStream.range(0, 100)
+                .mapToObj(i -> newVar("v" + i, i * 8))
+                .toList();
+        Map<Var, Value> expected = new HashMap<>();
+        CPFact fact = new CPFact();
+        for (Var var : vars) {
+            Value value = var.getIndex() % 3 == 0 ?
+                    Value.getNAC() : Value.makeConstant(-var.getIndex());
+            Assert.assertTrue(fact.update(var, value));
+            Assert.assertFalse(fact.update(var, value));
+            expected.put(var, value);
+            assertMappings(expected, fact);
+        }
+        CPFact copy = fact.copy();
+        for (int i = 0; i < vars.size(); i += 2) {
+            Assert.assertEquals(expected.remove(vars.get(i)), fact.remove(vars.get(i)));
+        }
+        assertMappings(expected, fact);
+        Assert.assertNotEquals(copy, fact);
+        // meeting with the same values restores the removed mappings
+        Assert.assertFalse(copy.meetFrom(fact));
+        Assert.assertTrue(fact.meetFrom(copy));
+        Assert.assertEquals(copy, fact);
+        Assert.assertFalse(fact.copyFrom(copy));
+        fact.clear();
+        assertMappings(Map.of(), fact);
+    }
+
+    @Test
+    public void testVarsOfDifferentMethodsShareIndex() {
+        // variables of different methods may have the same index,
+        // and they are distinct keys
+        Var x1 = newVar("x", 0);
+        Var x2 = newVar("x", 0);
+        CPFact fact = new CPFact();
+        Assert.assertTrue(fact.update(x1, Value.makeConstant(1)));
+        Assert.assertTrue(fact.update(x2, Value.makeConstant(2)));
+        assertMappings(Map.of(x1, Value.makeConstant(1),
+                x2, Value.makeConstant(2)), fact);
+        Assert.assertEquals(Value.makeConstant(1), fact.remove(x1));
+        assertMappings(Map.of(x2, Value.makeConstant(2)), fact);
+        CPFact other = new CPFact();
+        other.update(x1, Value.makeConstant(2));
+        Assert.assertNotEquals(other, fact);
+        Assert.assertTrue(other.meetFrom(fact));
+        assertMappings(Map.of(x1, Value.makeConstant(2),
+                x2, Value.makeConstant(2)), other);
+    }
+
+    @Test
+    public void testCopyIntoMapFact() {
+        CPFact fact = new CPFact();
+        Var a = newVar("a", 0);
+        fact.update(a, Value.getNAC());
+        MapFact<Var, Value> mapFact = new MapFact<>(Map.of());
+        Assert.assertTrue(mapFact.copyFrom(fact));
+        Assert.assertEquals(Value.getNAC(), mapFact.get(a));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.ir.exp.Var;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static pascal.taie.analysis.dataflow.analysis.constprop.CPFactTest.newVar;
+
+/**
+ * Checks that {@link PersistentCPFact} behaves the same as {@link CPFact}
+ * under random sequences of operations.
+ */
+public class PersistentCPFactTest {
+
+    private static final int STEPS = 5000;
+
+    private static final int LANES = 4;
+
+    private final Random random = new Random(20221017);
+
+    /**
+     * Variables whose indexes are spread over several levels of the trie,
+     * including the variables that share an index with others, which are
+     * kept by {@code CollisionNode}s.
+     */
+    private final List<Var> vars = new ArrayList<>();
+
+    /**
+     * Each lane is a pair of facts that are supposed to be equal.
+     */
+    private final List<PersistentCPFact> persistentFacts = new ArrayList<>();
+
+    private final List<CPFact> facts = new ArrayList<>();
+
+    @Test
+    public void testRandomOperations() {
+        for (int i = 0; i < 64; ++i) {
+            vars.add(newVar("v" + i, random.nextInt(4096)));
+        }
+        // indexes that differ only in the highest levels of the trie
+        for (int i = 0; i < 4; ++i) {
+            vars.add(newVar("h" + i, (i + 1) << 30 | 7));
+        }
+        // variables of other methods which share indexes
+        for (int i = 0; i < 8; ++i) {
+            Var var = vars.get(i % 3);
+            vars.add(newVar(var.getName() + "'" + i, var.getIndex()));
+        }
+        for (int i = 0; i < LANES; ++i) {
+            persistentFacts.add(new PersistentCPFact());
+            facts.add(new CPFact());
+        }
+        for (int step = 0; step < STEPS; ++step) {
+            int i = random.nextInt(LANES);
+            int j = random.nextInt(LANES);
+            PersistentCPFact pFact = persistentFacts.get(i);
+            CPFact fact = facts.get(i);
+            String msg = "step " + step;
+            switch (random.nextInt(10)) {
+                case 0, 1, 2, 3 -> {
+                    Var var = randomVar();
+                    Value value = randomValue();
+                    Assert.assertEquals(msg, fact.update(var, value),
+                            pFact.update(var, value));
+                }
+                case 4, 5 -> {
+                    Var var = randomVar();
+                    Assert.assertEquals(msg, fact.remove(var), pFact.remove(var));
+                }
+                case 6 -> {
+                    // forks a lane, so that the facts share their tries
+                    persistentFacts.set(j, pFact.copy());
+                    facts.set(j, fact.copy());
+                    assertEquivalent(msg, persistentFacts.get(j), facts.get(j));
+                }
+                case 7 -> Assert.assertEquals(msg,
+                        fact.meetFrom(facts.get(j)),
+                        pFact.meetFrom(persistentFacts.get(j)));
+                case 8 -> {
+                    // meets across the two representations
+                    boolean changed = fact.meetFrom(persistentFacts.get(j));
+                    Assert.assertEquals(msg, changed, pFact.meetFrom(facts.get(j)));
+                }
+                case 9 -> {
+                    if (random.nextInt(10) == 0) {
+                        fact.clear();
+                        pFact.clear();
+                    } else if (random.nextBoolean()) {
+                        Assert.assertEquals(msg,
+                                fact.copyFrom(facts.get(j)),
+                                pFact.copyFrom(persistentFacts.get(j)));
+                    } else {
+                        boolean changed = fact.copyFrom(persistentFacts.get(j));
+                        Assert.assertEquals(msg, changed, pFact.copyFrom(facts.get(j)));
+                    }
+                }
+            }
+            assertEquivalent(msg, pFact, fact);
+        }
+    }
+
+    private Var randomVar() {
+        return vars.get(random.nextInt(vars.size()));
+    }
+
+    private Value randomValue() {
+        return switch (random.nextInt(4)) {
+            case 0 -> Value.getUndef();
+            case 1 -> Value.getNAC();
+            default -> Value.makeConstant(random.nextInt(3));
+        };
+    }
+
+    private void assertEquivalent(String msg, PersistentCPFact pFact, CPFact fact) {
+        Assert.assertEquals(msg, fact, pFact);
+        Assert.assertEquals(msg, pFact, fact);
+        Assert.assertEquals(msg, fact.hashCode(), pFact.hashCode());
+        Assert.assertEquals(msg, fact.keySet().size(), pFact.keySet().size());
+        for (Var var : vars) {
+            Assert.assertEquals(msg, fact.get(var), pFact.get(var));
+            Assert.assertEquals(msg, fact.keySet().contains(var),
+                    pFact.keySet().contains(var));
+        }
+        // the trie is canonical, i.e., it does not depend on the history
+        // of the fact, which is checked by the structural equality
+        List<Map.Entry<Var, Value>> entries = new ArrayList<>(
+                fact.entries().toList());
+        Collections.shuffle(entries, random);
+        PersistentCPFact rebuilt = new PersistentCPFact();
+        entries.forEach(e -> rebuilt.update(e.getKey(), e.getValue()));
+        Assert.assertEquals(msg, rebuilt, pFact);
+        Assert.assertEquals(msg, pFact, rebuilt);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.util.Indexable;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Checks the bounds of the universe and the facts sharing an array of words.
+ */
+public class BitSetFactTest {
+
+    private record Elem(int index) implements Indexable {
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+    }
+
+    /**
+     * 70 elements, i.e., two words, the second of which is partially used.
+     */
+    private static final List<Elem> UNIVERSE = IntStream.range(0, 70)
+            .mapToObj(Elem::new)
+            .toList();
+
+    @Test
+    public void testAddOutOfUniverse() {
+        BitSetFact<Elem> fact = new BitSetFact<>(UNIVERSE);
+        Elem inLastWord = new Elem(UNIVERSE.size());
+        Assert.assertFalse(fact.contains(inLastWord));
+        Assert.assertFalse(fact.remove(inLastWord));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> fact.add(inLastWord));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> fact.add(new Elem(1000)));
+        Assert.assertTrue(fact.isEmpty());
+    }
+
+    @Test
+    public void testSliceOfSharedWords() {
+        // two facts share an array, and each of them owns two words
+        long[] words = new long[4];
+        BitSetFact<Elem> first = new BitSetFact<>(UNIVERSE, words, 0, 2);
+        BitSetFact<Elem> second = new BitSetFact<>(UNIVERSE, words, 2, 2);
+        Assert.assertTrue(first.add(UNIVERSE.get(69)));
+        Assert.assertTrue(second.add(UNIVERSE.get(3)));
+        Assert.assertEquals(List.of(UNIVERSE.get(69)), first.stream().toList());
+        Assert.assertEquals(List.of(UNIVERSE.get(3)), second.stream().toList());
+        Assert.assertTrue(first.union(second));
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(first, first.copy());
+        Assert.assertEquals(first.hashCode(), first.copy().hashCode());
+        second.clear();
+        Assert.assertTrue(second.isEmpty());
+        Assert.assertEquals(2, first.size());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks which incoming edges {@link DirtyEdges} returns to be met.
+ */
+public class DirtyEdgesTest {
+
+    private static final List<String> IN_EDGES = List.of("p1", "p2", "p3");
+
+    @Test
+    public void testFirstVisit() {
+        DirtyEdges<String, String> dirtyEdges = new DirtyEdges<>();
+        // all incoming edges are met at the first visit,
+        // thus the marks before that are irrelevant
+        dirtyEdges.mark("n", "p1");
+        Assert.assertEquals(IN_EDGES, dirtyEdges.take("n", IN_EDGES));
+        Assert.assertTrue(dirtyEdges.take("n", IN_EDGES).isEmpty());
+        // other nodes are not affected
+        Assert.assertEquals(IN_EDGES, dirtyEdges.take("m", IN_EDGES));
+    }
+
+    @Test
+    public void testDirtyOnly() {
+        DirtyEdges<String, String> dirtyEdges = new DirtyEdges<>();
+        dirtyEdges.take("n", IN_EDGES);
+        dirtyEdges.mark("n", "p2");
+        Assert.assertEquals(Set.of("p2"), Set.copyOf(dirtyEdges.take("n", IN_EDGES)));
+        Assert.assertTrue(dirtyEdges.take("n", IN_EDGES).isEmpty());
+        dirtyEdges.mark("n", "p3");
+        dirtyEdges.mark("n", "p1");
+        dirtyEdges.mark("n", "p3");
+        Collection<String> dirty = dirtyEdges.take("n", IN_EDGES);
+        Assert.assertEquals(2, dirty.size());
+        Assert.assertEquals(Set.of("p1", "p3"), Set.copyOf(dirty));
+        Assert.assertTrue(dirtyEdges.take("n", IN_EDGES).isEmpty());
+    }
+}
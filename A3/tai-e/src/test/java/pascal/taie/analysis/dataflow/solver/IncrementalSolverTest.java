@@ -0,0 +1,221 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+
+/**
+ * Checks that re-solving incrementally with
+ * {@link Solver#solve(CFG, DataflowResult, java.util.Collection)}
+ * reaches the same fixed point as solving from scratch.
+ */
+public class IncrementalSolverTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/deadcode/";
+
+    private static final String[] CLASSES = {
+            "Loops", "UnreachableSwitchBranch", "DeadAssignment",
+    };
+
+    private static final String[] SOLVERS = {"iterative", "worklist", "wto"};
+
+    @Test
+    public void testConstantPropagation() {
+        ConstantPropagation constprop = new ConstantPropagation(
+                new AnalysisConfig(ConstantPropagation.ID, "edge-refine", false));
+        for (String inputClass : CLASSES) {
+            for (IR ir : buildIRs(inputClass)) {
+                // parameters become constants, and the changed
+                // statements pass their IN facts through
+                test(ir, new ChangedAnalysis<>(constprop,
+                        (cfg, fact) -> {
+                            cfg.getIR().getParams().forEach(param -> {
+                                if (ConstantPropagation.canHoldInt(param)) {
+                                    fact.update(param, Value.makeConstant(1));
+                                }
+                            });
+                            return fact;
+                        },
+                        (in, out) -> out.copyFrom(in)));
+            }
+        }
+    }
+
+    @Test
+    public void testLiveVariables() {
+        LiveVariableAnalysis livevar = new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID, "strongly", false));
+        for (String inputClass : CLASSES) {
+            for (IR ir : buildIRs(inputClass)) {
+                // parameters are live at the exit, and the changed
+                // statements pass their OUT facts through
+                test(ir, new ChangedAnalysis<>(livevar,
+                        (cfg, fact) -> {
+                            cfg.getIR().getParams().forEach(fact::add);
+                            return fact;
+                        },
+                        (in, out) -> in.union(out)));
+            }
+        }
+    }
+
+    private static List<IR> buildIRs(String inputClass) {
+        Main.main(new String[]{
+                "-pp", "-cp", CLASS_PATH, "-m", inputClass,
+                "-a", CFGBuilder.ID + "=exception:explicit;dump:false",
+        });
+        List<IR> irs = new ArrayList<>();
+        for (JMethod method : World.get().getClassHierarchy()
+                .getClass(inputClass).getDeclaredMethods()) {
+            irs.add(method.getIR());
+        }
+        return irs;
+    }
+
+    /**
+     * Solves given analysis, changes its boundary fact and the transfer
+     * functions of some statements, re-solves the previous result
+     * incrementally, and compares it with a result solved from scratch.
+     */
+    private static <Fact> void test(IR ir, ChangedAnalysis<Fact> analysis) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        List<Stmt> changed = new ArrayList<>();
+        changed.add(analysis.isForward() ? cfg.getEntry() : cfg.getExit());
+        for (Stmt stmt : ir) {
+            if (stmt.getIndex() % 3 == 0) {
+                changed.add(stmt);
+            }
+        }
+        for (String kind : SOLVERS) {
+            analysis.changed = Set.of();
+            Solver<Stmt, Fact> solver = Solver.makeSolver(analysis, kind);
+            DataflowResult<Stmt, Fact> result = solver.solve(cfg);
+            analysis.changed = Set.copyOf(changed);
+            result = solver.solve(cfg, result, changed);
+            DataflowResult<Stmt, Fact> expected = solver.solve(cfg);
+            for (Stmt node : cfg) {
+                String message = kind + " solver, " + ir.getMethod() + ": " + node;
+                Assert.assertEquals(message, expected.getInFact(node),
+                        result.getInFact(node));
+                Assert.assertEquals(message, expected.getOutFact(node),
+                        result.getOutFact(node));
+            }
+        }
+    }
+
+    /**
+     * Delegates to an analysis, except for the boundary fact and the
+     * transfer functions of the changed nodes.
+     */
+    private static class ChangedAnalysis<Fact> implements DataflowAnalysis<Stmt, Fact> {
+
+        private final DataflowAnalysis<Stmt, Fact> analysis;
+
+        private final BiFunction<CFG<Stmt>, Fact, Fact> changeBoundary;
+
+        /**
+         * Transfer function of the changed nodes, which takes IN and OUT facts.
+         */
+        private final BiPredicate<Fact, Fact> changedTransfer;
+
+        /**
+         * Nodes whose boundary fact or transfer function is changed.
+         */
+        private Set<Stmt> changed = Set.of();
+
+        private ChangedAnalysis(DataflowAnalysis<Stmt, Fact> analysis,
+                                BiFunction<CFG<Stmt>, Fact, Fact> changeBoundary,
+                                BiPredicate<Fact, Fact> changedTransfer) {
+            this.analysis = analysis;
+            this.changeBoundary = changeBoundary;
+            this.changedTransfer = changedTransfer;
+        }
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public Fact newBoundaryFact(CFG<Stmt> cfg) {
+            Fact fact = analysis.newBoundaryFact(cfg);
+            return changed.isEmpty() ? fact : changeBoundary.apply(cfg, fact);
+        }
+
+        @Override
+        public Fact newInitialFact() {
+            return analysis.newInitialFact();
+        }
+
+        @Override
+        public Fact newInitialFact(CFG<Stmt> cfg) {
+            return analysis.newInitialFact(cfg);
+        }
+
+        @Override
+        public void meetInto(Fact fact, Fact target) {
+            analysis.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, Fact in, Fact out) {
+            return changed.contains(stmt) ?
+                    changedTransfer.test(in, out) :
+                    analysis.transferNode(stmt, in, out);
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return analysis.needTransferEdge(edge);
+        }
+
+        @Override
+        public Fact transferEdge(Edge<Stmt> edge, Fact nodeFact) {
+            return analysis.transferEdge(edge, nodeFact);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.Configs;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.graph.SCC;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the statistics reported by {@link InstrumentedSolver}.
+ */
+public class SolverStatsTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/deadcode/";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Solves given analysis for the methods of given class with
+     * statistics enabled.
+     *
+     * @return the statistics reported for each method
+     */
+    private static List<JsonNode> solve(String inputClass, String id, String options) {
+        Main.main(new String[]{
+                "-pp", "-cp", CLASS_PATH, "-m", inputClass,
+                "-a", id + "=" + options + ";stats:true",
+        });
+        File report = new File(Configs.getOutputDir(), id + "-solver-stats.jsonl");
+        List<JsonNode> records = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(report.toPath())) {
+                records.add(mapper.readTree(line));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return records;
+    }
+
+    @Test
+    public void testConstantPropagation() {
+        for (String granularity : List.of("stmt", "block")) {
+            List<JsonNode> records = solve("Loops", ConstantPropagation.ID,
+                    "edge-refine:false;granularity:" + granularity);
+            // one record for each method of Loops, including <init>
+            Assert.assertEquals(granularity, 4, records.size());
+            for (JsonNode record : records) {
+                // the underlying solver of BlockSolver counts iterations
+                Assert.assertTrue(granularity, record.get("iterations").asInt() > 0);
+                Assert.assertTrue(granularity, record.get("transfers").asInt() > 0);
+            }
+            // CPFacts are sized by their mappings
+            JsonNode deadLoop = records.stream()
+                    .filter(r -> r.get("method").asText().contains("deadLoop"))
+                    .findFirst()
+                    .orElseThrow();
+            Assert.assertTrue(granularity, deadLoop.get("maxFactSize").asInt() >= 3);
+        }
+    }
+
+    @Test
+    public void testLiveVariables() {
+        for (String fact : List.of("set", "bitset")) {
+            List<JsonNode> records = solve("Loops", LiveVariableAnalysis.ID,
+                    "strongly:false;fact:" + fact);
+            JsonNode deadLoop = records.stream()
+                    .filter(r -> r.get("method").asText().contains("deadLoop"))
+                    .findFirst()
+                    .orElseThrow();
+            Assert.assertTrue(fact, deadLoop.get("maxFactSize").asInt() > 0);
+        }
+    }
+
+    /**
+     * @return the statistics of given records, keyed by the methods.
+     */
+    private static Map<String, JsonNode> byMethod(List<JsonNode> records) {
+        return records.stream().collect(Collectors.toMap(
+                r -> r.get("method").asText(), Function.identity()));
+    }
+
+    /**
+     * Checks the numbers of transfers and meets of the work-list solver,
+     * which processes the nodes in reverse postorder, and only meets the
+     * facts of the edges whose sources changed.
+     */
+    private static void checkWorkList(String inputClass, String id, String options) {
+        Map<String, JsonNode> iterative = byMethod(
+                solve(inputClass, id, options + ";solver:iterative"));
+        Map<String, JsonNode> workList = byMethod(
+                solve(inputClass, id, options + ";solver:worklist"));
+        for (JMethod method : World.get().getClassHierarchy()
+                .getClass(inputClass).getDeclaredMethods()) {
+            String msg = id + " " + method;
+            JsonNode record = workList.get(method.toString());
+            int transfers = record.get("transfers").asInt();
+            Assert.assertEquals(msg, record.get("iterations").asInt(), transfers);
+            Assert.assertTrue(msg, transfers <=
+                    iterative.get(method.toString()).get("transfers").asInt());
+            CFG<Stmt> cfg = method.getIR().getResult(CFGBuilder.ID);
+            if (new SCC<>(cfg).getTrueComponents().isEmpty()) {
+                // without loops, each node (except the entry or exit)
+                // is transferred once, and each edge is met once
+                int edges = cfg.getNodes().stream()
+                        .mapToInt(node -> cfg.getSuccsOf(node).size())
+                        .sum();
+                Assert.assertEquals(msg, cfg.getNumberOfNodes() - 1, transfers);
+                Assert.assertEquals(msg, edges, record.get("meets").asInt());
+            }
+        }
+    }
+
+    @Test
+    public void testWorkListTransfers() {
+        for (String inputClass : List.of("Loops", "DeadAssignment")) {
+            checkWorkList(inputClass, ConstantPropagation.ID, "edge-refine:false");
+            checkWorkList(inputClass, LiveVariableAnalysis.ID, "strongly:false");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.util.graph.SimpleGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the order and the deduplication of {@link WorkList}.
+ */
+public class WorkListTest {
+
+    /**
+     * entry -> a, b; a, b -> c; c -> d -> c (loop); c -> exit,
+     * and an unreachable node u -> exit.
+     */
+    private static SimpleGraph<String> makeGraph() {
+        SimpleGraph<String> graph = new SimpleGraph<>();
+        graph.addEdge("entry", "a");
+        graph.addEdge("entry", "b");
+        graph.addEdge("a", "c");
+        graph.addEdge("b", "c");
+        graph.addEdge("c", "d");
+        graph.addEdge("d", "c");
+        graph.addEdge("c", "exit");
+        graph.addEdge("u", "exit");
+        return graph;
+    }
+
+    private static List<String> pollAll(WorkList<String> workList) {
+        List<String> polled = new ArrayList<>();
+        while (!workList.isEmpty()) {
+            polled.add(workList.poll());
+        }
+        Assert.assertNull(workList.poll());
+        return polled;
+    }
+
+    private static void assertBefore(List<String> order, String first, String second) {
+        Assert.assertTrue(order + ": " + first + " before " + second,
+                order.indexOf(first) < order.indexOf(second));
+    }
+
+    @Test
+    public void testForwardOrder() {
+        SimpleGraph<String> graph = makeGraph();
+        WorkList<String> workList = new WorkList<>(graph, List.of("entry"), true);
+        workList.addAll(List.of("exit", "u", "d", "c", "b", "a", "entry"));
+        List<String> order = pollAll(workList);
+        Assert.assertEquals(7, order.size());
+        Assert.assertEquals("entry", order.get(0));
+        assertBefore(order, "a", "c");
+        assertBefore(order, "b", "c");
+        // d -> c is the back edge of the loop
+        assertBefore(order, "c", "d");
+        assertBefore(order, "c", "exit");
+        // nodes unreachable from the roots are ordered last
+        Assert.assertEquals("u", order.get(6));
+    }
+
+    @Test
+    public void testBackwardOrder() {
+        SimpleGraph<String> graph = makeGraph();
+        WorkList<String> workList = new WorkList<>(graph, List.of("exit"), false);
+        workList.addAll(List.of("entry", "a", "b", "c", "d", "u", "exit"));
+        List<String> order = pollAll(workList);
+        Assert.assertEquals("exit", order.get(0));
+        assertBefore(order, "c", "a");
+        assertBefore(order, "c", "b");
+        assertBefore(order, "c", "d");
+        assertBefore(order, "a", "entry");
+        assertBefore(order, "b", "entry");
+    }
+
+    @Test
+    public void testDedup() {
+        WorkList<String> workList = new WorkList<>(makeGraph(), List.of("entry"), true);
+        Assert.assertTrue(workList.isEmpty());
+        Assert.assertTrue(workList.add("c"));
+        Assert.assertFalse(workList.add("c"));
+        workList.addAll(List.of("a", "c", "a"));
+        Assert.assertEquals("a", workList.poll());
+        Assert.assertEquals("c", workList.poll());
+        Assert.assertTrue(workList.isEmpty());
+        // a polled node can be added again
+        Assert.assertTrue(workList.add("c"));
+        Assert.assertTrue(workList.add("d"));
+        // the node of the smallest rank is polled first, e.g.,
+        // the head of a loop is re-processed before the loop body
+        Assert.assertTrue(workList.add("a"));
+        Assert.assertEquals(List.of("a", "c", "d"), pollAll(workList));
+    }
+}
@@ -0,0 +1,32 @@
+class NonIntComparison {
+
+    int compareLongs(long a, long b) {
+        int x;
+        if (a > b) {
+            x = 1;
+        } else {
+            x = 2;
+        }
+        return x;
+    }
+
+    void compareFloats(float f) {
+        int y = 0;
+        if (f < 1.5f) {
+            y = 1;
+        }
+        use(y);
+    }
+
+    void compareDoubles(double d) {
+        int z = 0;
+        while (d > 0) {
+            d = d - 1;
+            z = z + 1;
+        }
+        use(z);
+    }
+
+    void use(int n) {
+    }
+}
@@ -0,0 +1,10 @@
+class StaticMethods {
+
+    static void empty() {
+    }
+
+    static int constant() {
+        int x = 1; // dead assignment
+        return 2;
+    }
+}
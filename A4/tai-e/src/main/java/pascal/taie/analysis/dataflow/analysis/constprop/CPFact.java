@@ -25,8 +25,17 @@ package pascal.taie.analysis.dataflow.analysis.constprop;
 import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.ir.exp.Var;
 
-import java.util.Collections;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Represents data facts of constant propagation, which maps variables
@@ -37,15 +46,102 @@ import java.util.Map;
  * it represents that the lattice value of the variable is UNDEF;
  * moreover, if we set the lattice value of a variable to UNDEF,
  * it effectively removes the variable from the CPFact.
+ * <p>
+ * The mappings are kept in an open-addressing hash table keyed by
+ * {@link Var#getIndex()}, and each value is packed into a {@code long}
+ * (the kind in high 32 bits and the constant in low 32 bits), so that
+ * copying and comparing facts work on the arrays, and {@link Value}s
+ * are only created when they are queried.
  */
 public class CPFact extends MapFact<Var, Value> {
 
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final long CONSTANT = 1L << 32;
+
+    private static final long NAC = 2L << 32;
+
+    private static final long CONSTANT_MASK = 0xFFFFFFFFL;
+
+    /**
+     * Variables of the mappings, null for empty slots.
+     * The length is always a power of two.
+     */
+    private Var[] keys;
+
+    /**
+     * Packed values of the variables in {@link #keys}.
+     */
+    private long[] values;
+
+    private int size;
+
     public CPFact() {
-        this(Collections.emptyMap());
+        this(new Var[INITIAL_CAPACITY], new long[INITIAL_CAPACITY], 0);
     }
 
-    private CPFact(Map<Var, Value> map) {
-        super(map);
+    CPFact(Var[] keys, long[] values, int size) {
+        // mappings are kept in the arrays, thus the super class has no map
+        super();
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * @return packed representation of given value, 0 for UNDEF.
+     */
+    static long pack(Value value) {
+        if (value.isUndef()) {
+            return 0;
+        }
+        return value.isNAC() ? NAC :
+                CONSTANT | (value.getConstant() & CONSTANT_MASK);
+    }
+
+    static Value unpack(long value) {
+        if (value == 0) {
+            return Value.getUndef();
+        }
+        return value == NAC ? Value.getNAC() :
+                Value.makeConstant((int) value);
+    }
+
+    /**
+     * Meets two packed values, which is the same as
+     * {@link ConstantPropagation#meetValue(Value, Value)}.
+     * Packed UNDEF (i.e., absence) is 0.
+     */
+    static long meet(long v1, long v2) {
+        if (v1 == 0 || v1 == v2) {
+            return v2;
+        } else if (v2 == 0) {
+            return v1;
+        } else {
+            return NAC;
+        }
+    }
+
+    /**
+     * @return true if given fact is represented by the arrays of this class.
+     */
+    private static boolean isPacked(MapFact<?, ?> fact) {
+        return fact.getClass() == CPFact.class;
+    }
+
+    /**
+     * @return the slot of given variable, or the empty slot where
+     * the variable should be inserted if it is absent.
+     */
+    private int slotOf(Var var) {
+        int mask = keys.length - 1;
+        int i = var.getIndex() & mask;
+        // variables of different methods may have the same index,
+        // thus the keys are compared by identity
+        while (keys[i] != null && keys[i] != var) {
+            i = (i + 1) & mask;
+        }
+        return i;
     }
 
     /**
@@ -54,7 +150,8 @@ public class CPFact extends MapFact<Var, Value> {
      */
     @Override
     public Value get(Var key) {
-        return map.getOrDefault(key, Value.getUndef());
+        int i = slotOf(key);
+        return keys[i] == null ? Value.getUndef() : unpack(values[i]);
     }
 
     @Override
@@ -65,12 +162,237 @@ public class CPFact extends MapFact<Var, Value> {
             // as we use absence to represent UNDEF.
             return remove(key) != null;
         } else {
-            return super.update(key, value);
+            return put(key, pack(value));
+        }
+    }
+
+    private boolean put(Var key, long value) {
+        int i = slotOf(key);
+        if (keys[i] == null) {
+            keys[i] = key;
+            values[i] = value;
+            if (++size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            return true;
+        } else if (values[i] != value) {
+            values[i] = value;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private void resize(int capacity) {
+        Var[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new Var[capacity];
+        values = new long[capacity];
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != null) {
+                int j = slotOf(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public Value remove(Var key) {
+        int i = slotOf(key);
+        if (keys[i] == null) {
+            return null;
+        }
+        Value oldValue = unpack(values[i]);
+        // shift back the following keys of the probe sequence,
+        // so that no tombstones are needed
+        int mask = keys.length - 1;
+        for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            int home = keys[j].getIndex() & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = null;
+        values[i] = 0;
+        --size;
+        return oldValue;
+    }
+
+    /**
+     * Meets given fact into this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean meetFrom(CPFact fact) {
+        boolean changed = false;
+        if (isPacked(fact)) {
+            for (int i = 0; i < fact.keys.length; ++i) {
+                if (fact.keys[i] != null) {
+                    int j = slotOf(fact.keys[i]);
+                    long value = keys[j] == null ? fact.values[i] :
+                            meet(values[j], fact.values[i]);
+                    changed |= put(fact.keys[i], value);
+                }
+            }
+        } else {
+            for (Var key : fact.keySet()) {
+                changed |= put(key, meet(pack(get(key)), pack(fact.get(key))));
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (isPacked(fact)) {
+            CPFact that = (CPFact) fact;
+            if (size == 0) {
+                keys = that.keys.clone();
+                values = that.values.clone();
+                size = that.size;
+                return size != 0;
+            }
+            boolean changed = false;
+            for (int i = 0; i < that.keys.length; ++i) {
+                if (that.keys[i] != null) {
+                    changed |= put(that.keys[i], that.values[i]);
+                }
+            }
+            return changed;
+        } else {
+            boolean changed = false;
+            for (Map.Entry<Var, Value> entry :
+                    (Iterable<Map.Entry<Var, Value>>) fact.entries()::iterator) {
+                changed |= update(entry.getKey(), entry.getValue());
+            }
+            return changed;
         }
     }
 
     @Override
     public CPFact copy() {
-        return new CPFact(this.map);
+        return new CPFact(keys.clone(), values.clone(), size);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, 0L);
+        size = 0;
+    }
+
+    @Override
+    public Set<Var> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Var> iterator() {
+                return new Iterator<>() {
+
+                    private int next = nextSlot(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < keys.length;
+                    }
+
+                    @Override
+                    public Var next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Var var = keys[next];
+                        next = nextSlot(next + 1);
+                        return var;
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Var var && keys[slotOf(var)] != null;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @return the first occupied slot on or after given slot,
+     * or the capacity if there is no such slot.
+     */
+    private int nextSlot(int from) {
+        int i = from;
+        while (i < keys.length && keys[i] == null) {
+            ++i;
+        }
+        return i;
+    }
+
+    @Override
+    public Stream<Map.Entry<Var, Value>> entries() {
+        return IntStream.range(0, keys.length)
+                .filter(i -> keys[i] != null)
+                .mapToObj(i -> Map.entry(keys[i], unpack(values[i])));
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != null) {
+                action.accept(keys[i], unpack(values[i]));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CPFact that)) {
+            return false;
+        }
+        if (!isPacked(that)) {
+            // compared by the other representation
+            return that.equals(this);
+        }
+        if (size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != null) {
+                int j = that.slotOf(keys[i]);
+                if (that.keys[j] == null || that.values[j] != values[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != null) {
+                hash += keys[i].hashCode() ^ Long.hashCode(values[i]);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        // keep the same representation as MapFact
+        return "{" + entries()
+                .sorted(Comparator.comparing(e -> e.getKey().toString()))
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(", ")) + "}";
     }
 }
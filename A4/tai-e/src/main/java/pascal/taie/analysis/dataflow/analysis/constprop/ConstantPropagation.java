@@ -23,20 +23,35 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.DefinitionStmt;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.type.PrimitiveType;
 import pascal.taie.language.type.Type;
 
+import javax.annotation.Nullable;
+import java.util.List;
+
 public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact> {
 
     public static final String ID = "constprop";
 
+    /**
+     * Whether facts are {@link PersistentCPFact}s, specified by
+     * option "fact: persistent".
+     */
+    private final boolean persistent;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        persistent = "persistent".equals(getOptions().getString("fact"));
     }
 
     @Override
@@ -46,7 +61,7 @@ public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact>
 
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
-        var fact = new CPFact();
+        var fact = newInitialFact();
         for (var variable : cfg.getIR().getParams()) {
             if (canHoldInt(variable)) {
                 fact.update(variable, Value.getNAC());
@@ -57,15 +72,13 @@ public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact>
 
     @Override
     public CPFact newInitialFact() {
-        return new CPFact();
+        return persistent ? new PersistentCPFact() : new CPFact();
     }
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
-        for (var variable : fact.keySet()) {
-            Value v1 = target.get(variable), v2 = fact.get(variable);
-            target.update(variable, meetValue(v1, v2));
-        }
+        // same as meeting the values of each variable by meetValue()
+        target.meetFrom(fact);
     }
 
     /**
@@ -101,21 +114,29 @@ public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact>
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
-        var in_copy = in.copy();
-
-        if (stmt instanceof DefinitionStmt<?, ?>) {
-            DefinitionStmt definitionStmt = (DefinitionStmt) stmt;
-            LValue lValue = definitionStmt.getLValue();
-            RValue rValue = definitionStmt.getRValue();
-            if (lValue instanceof Var var && canHoldInt(var)) {
-                Value value = evaluate(rValue, in_copy);
-                if (value != null) {
-                    in_copy.update(var, value);
-                }
-            }
+        return transferNode(compile(stmt), in, out);
+    }
 
+    /**
+     * Transfer function with the precompiled evaluator of a statement.
+     *
+     * @param evaluator the evaluator of the statement, or null if
+     *                  the statement does not define any int variable.
+     */
+    public boolean transferNode(@Nullable Evaluator evaluator, CPFact in, CPFact out) {
+        Value value = evaluator == null ? null : evaluator.evaluate(in);
+        if (value == null) {
+            return out.copyFrom(in);
         }
-        return out.copyFrom(in_copy);
+        // copy IN to OUT in place instead of copying IN, where the defined
+        // variable is aligned with IN beforehand, so that copying does not
+        // report the change of the variable which is redefined right after
+        Var lValue = evaluator.getLValue();
+        Value oldValue = out.get(lValue);
+        out.update(lValue, in.get(lValue));
+        boolean changed = out.copyFrom(in);
+        out.update(lValue, value);
+        return changed || !value.equals(oldValue);
     }
 
     /**
@@ -144,85 +165,119 @@ public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact>
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
-        if (exp instanceof Var) {
-            return evaluateVar((Var) exp, in);
-        } else if (exp instanceof BinaryExp) {
-            return evaluateBinaryExp((BinaryExp) exp, in);
-        } else if (exp instanceof IntLiteral) {
-            return evaluateConstant((IntLiteral) exp);
-        }
-        return Value.getNAC();
+        // the expression is evaluated directly, as compiling it
+        // does not pay off for a single evaluation
+        if (exp instanceof Var var) {
+            return in.get(var);
+        } else if (exp instanceof BinaryExp binaryExp) {
+            return Evaluator.evaluate(binaryExp, in);
+        } else if (exp instanceof IntLiteral intLiteral) {
+            return Value.makeConstant(intLiteral.getValue());
+        } else if (exp instanceof InvokeExp) {
+            return Value.getNAC();
+        }
+        return null;
     }
 
-    private static Value evaluateVar(Var var, CPFact cpFact) {
-        return cpFact.get(var);
+    /**
+     * Compiles the statements of given IR into evaluators.
+     *
+     * @return the evaluators indexed by {@link Stmt#getIndex()}.
+     */
+    public static Evaluator[] compile(IR ir) {
+        List<Stmt> stmts = ir.getStmts();
+        Evaluator[] evaluators = new Evaluator[stmts.size()];
+        for (Stmt stmt : stmts) {
+            evaluators[stmt.getIndex()] = compile(stmt);
+        }
+        return evaluators;
     }
 
-    private static Value evaluateConstant(IntLiteral intLiteral) {
-        return Value.makeConstant(intLiteral.getValue());
+    /**
+     * @return the evaluator of given statement, or null if the statement
+     * does not define any int variable.
+     */
+    @Nullable
+    public static Evaluator compile(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> definitionStmt
+                && definitionStmt.getLValue() instanceof Var var
+                && canHoldInt(var)) {
+            return compile(var, definitionStmt.getRValue());
+        }
+        return null;
     }
 
-    private static Value evaluateBinaryExp(BinaryExp binaryExp, CPFact cpFact) {
-        Value v1 = cpFact.get(binaryExp.getOperand1()), v2 = cpFact.get(binaryExp.getOperand2());
-        if (v1.isNAC() || v2.isNAC()) {
-            return Value.getNAC();
-        } else if (v1.isUndef() || v2.isUndef()) {
-            return Value.getUndef();
+    /**
+     * @return the evaluator of given expression.
+     */
+    private static Evaluator compile(@Nullable Var lValue, Exp exp) {
+        if (exp instanceof Var var) {
+            return new Evaluator.Variable(lValue, var);
+        } else if (exp instanceof BinaryExp binaryExp) {
+            return Evaluator.ofBinary(lValue, binaryExp);
+        } else if (exp instanceof IntLiteral intLiteral) {
+            return new Evaluator.Constant(lValue, Value.makeConstant(intLiteral.getValue()));
         }
+        return new Evaluator.Constant(lValue, Value.getNAC());
+    }
 
-        int op1 = v1.getConstant(), op2 = v2.getConstant();
-        if (binaryExp instanceof ArithmeticExp) {
-            return evaluateArithmetic((ArithmeticExp) binaryExp, op1, op2);
-        } else if (binaryExp instanceof BitwiseExp) {
-            return evaluateBitwise((BitwiseExp) binaryExp, op1, op2);
-        } else if (binaryExp instanceof ConditionExp) {
-            return evaluateCondition((ConditionExp) binaryExp, op1, op2);
-        } else if (binaryExp instanceof ShiftExp) {
-            return evaluateShift((ShiftExp) binaryExp, op1, op2);
-        }
-        return null;
+    /**
+     * Solves the method with the precompiled evaluators of its statements.
+     */
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        return makeSolver(new CompiledAnalysis(compile(ir))).solve(cfg);
     }
 
-    private static Value evaluateArithmetic(ArithmeticExp exp, int op1, int op2) {
+    /**
+     * View of this analysis for a method, whose transfer function uses
+     * the precompiled evaluators of the statements in the method.
+     */
+    private class CompiledAnalysis implements DataflowAnalysis<Stmt, CPFact> {
 
-        return switch (exp.getOperator()) {
-            case ADD -> Value.makeConstant(op1 + op2);
-            case DIV -> op2 == 0 ? Value.getUndef() : Value.makeConstant(op1 / op2);
-            case MUL -> Value.makeConstant(op1 * op2);
-            case REM -> op2 == 0 ? Value.getUndef() : Value.makeConstant(op1 % op2);
-            case SUB -> Value.makeConstant(op1 - op2);
-        };
+        private final Evaluator[] evaluators;
 
-    }
+        private CompiledAnalysis(Evaluator[] evaluators) {
+            this.evaluators = evaluators;
+        }
 
-    private static Value evaluateShift(ShiftExp exp, int op1, int op2) {
-        return switch (exp.getOperator()) {
-            case SHL -> Value.makeConstant(op1 << op2);
-            case SHR -> Value.makeConstant(op1 >> op2);
-            case USHR -> Value.makeConstant(op1 >>> op2);
-        };
-    }
+        @Override
+        public boolean isForward() {
+            return ConstantPropagation.this.isForward();
+        }
 
-    private static Value evaluateCondition(ConditionExp exp, int op1, int op2) {
-        return switch (exp.getOperator()) {
-            case EQ -> mapCondition(op1 == op2);
-            case GE -> mapCondition(op1 >= op2);
-            case GT -> mapCondition(op1 > op2);
-            case LE -> mapCondition(op1 <= op2);
-            case LT -> mapCondition(op1 < op2);
-            case NE -> mapCondition(op1 != op2);
-        };
-    }
+        @Override
+        public CPFact newBoundaryFact(CFG<Stmt> cfg) {
+            return ConstantPropagation.this.newBoundaryFact(cfg);
+        }
 
-    private static Value mapCondition(boolean condition) {
-        return condition ? Value.makeConstant(1) : Value.makeConstant(0);
-    }
+        @Override
+        public CPFact newInitialFact() {
+            return ConstantPropagation.this.newInitialFact();
+        }
+
+        @Override
+        public void meetInto(CPFact fact, CPFact target) {
+            ConstantPropagation.this.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
+            int index = stmt.getIndex();
+            // the entry and exit of CFG are indexed after the statements
+            Evaluator evaluator = index < evaluators.length ? evaluators[index] : null;
+            return ConstantPropagation.this.transferNode(evaluator, in, out);
+        }
 
-    private static Value evaluateBitwise(BitwiseExp exp, int op1, int op2) {
-        return switch (exp.getOperator()) {
-            case OR -> Value.makeConstant(op1 | op2);
-            case AND -> Value.makeConstant(op1 & op2);
-            case XOR -> Value.makeConstant(op1 ^ op2);
-        };
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return ConstantPropagation.this.needTransferEdge(edge);
+        }
+
+        @Override
+        public CPFact transferEdge(Edge<Stmt> edge, CPFact nodeFact) {
+            return ConstantPropagation.this.transferEdge(edge, nodeFact);
+        }
     }
 }
@@ -33,6 +33,9 @@ import pascal.taie.analysis.graph.icfg.ICFGEdge;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
+
+import java.util.Collection;
 
 /**
  * Provides common functionalities for {@link InterDataflowAnalysis} implementations.
@@ -49,8 +52,20 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
 
     protected InterSolver<Method, Node, Fact> solver;
 
+    /**
+     * Whether the solver processes the nodes of each method in weak
+     * topological order, see {@link InterSolver}.
+     */
+    private final boolean wto;
+
     public AbstractInterDataflowAnalysis(AnalysisConfig config) {
         super(config);
+        String kind = getOptions().getString("solver");
+        wto = switch (kind == null ? "worklist" : kind) {
+            case "worklist" -> false;
+            case "wto" -> true;
+            default -> throw new ConfigException("Unknown solver: " + kind);
+        };
     }
 
     /**
@@ -121,9 +136,26 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
+        solver = new InterSolver<>(this, icfg, wto);
         DataflowResult<Node, Fact> result = solver.solve();
         finish();
         return result;
     }
+
+    /**
+     * Re-solves this analysis incrementally from a previous result
+     * of {@link #analyze()}, after the transfer functions of given
+     * nodes changed, see {@link InterSolver#solve(DataflowResult, Collection)}.
+     *
+     * @return the re-solved result
+     */
+    public DataflowResult<Node, Fact> analyze(DataflowResult<Node, Fact> result,
+                                              Collection<Node> changed) {
+        icfg = World.get().getResult(ICFGBuilder.ID);
+        initialize();
+        solver = new InterSolver<>(this, icfg, wto);
+        result = solver.solve(result, changed);
+        finish();
+        return result;
+    }
 }
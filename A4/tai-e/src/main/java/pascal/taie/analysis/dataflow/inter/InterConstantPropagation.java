@@ -22,8 +22,10 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import pascal.taie.analysis.dataflow.analysis.PrunedIR;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Evaluator;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
@@ -37,6 +39,9 @@ import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
 
 /**
  * Implementation of interprocedural constant propagation for int values.
@@ -47,9 +52,38 @@ public class InterConstantPropagation extends AbstractInterDataflowAnalysis<JMet
 
     private final ConstantPropagation cp;
 
+    /**
+     * If true, the statements in dead code are skipped, see {@link PrunedIR}.
+     */
+    private final boolean prune;
+
+    /**
+     * Compiled right-hand sides of the statements in the ICFG.
+     */
+    private Map<Stmt, Evaluator> evaluators;
+
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
-        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID,
+                "fact", getOptions().getString("fact")));
+        prune = getOptions().getBooleanOrDefault("prune", false);
+    }
+
+    @Override
+    protected void initialize() {
+        evaluators = Maps.newMap();
+        for (Stmt stmt : icfg) {
+            Evaluator evaluator = ConstantPropagation.compile(stmt);
+            if (evaluator != null) {
+                evaluators.put(stmt, evaluator);
+            }
+        }
+    }
+
+    @Override
+    public boolean isLive(Stmt stmt) {
+        return !prune || PrunedIR.of(
+                icfg.getContainingMethodOf(stmt).getIR()).isLive(stmt);
     }
 
     @Override
@@ -77,17 +111,17 @@ public class InterConstantPropagation extends AbstractInterDataflowAnalysis<JMet
     protected boolean transferCallNode(Stmt stmt, CPFact in, CPFact out) {
         // TODO - finish me
         if (stmt.getDef().isEmpty()) {
-            return cp.transferNode(stmt, in, out);
+            return cp.transferNode(evaluators.get(stmt), in, out);
         }
 
         var lValue = stmt.getDef().get();
 
         if (!(lValue instanceof Var)) {
-            return cp.transferNode(stmt, in, out);
+            return cp.transferNode(evaluators.get(stmt), in, out);
         }
         var copy = out.copy();
 
-        cp.transferNode(stmt, in, copy);
+        cp.transferNode(evaluators.get(stmt), in, copy);
 
         copy.update((Var) lValue, Value.getUndef());
 
@@ -98,7 +132,7 @@ public class InterConstantPropagation extends AbstractInterDataflowAnalysis<JMet
     @Override
     protected boolean transferNonCallNode(Stmt stmt, CPFact in, CPFact out) {
         // TODO - finish me
-        return cp.transferNode(stmt, in, out);
+        return cp.transferNode(evaluators.get(stmt), in, out);
     }
 
     @Override
@@ -0,0 +1,178 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.Graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Work list for data-flow solvers, which contains each node at most once,
+ * and always returns the node that comes first in the reverse postorder
+ * of the graph (of the reversed graph for backward analyses), so that
+ * the nodes in a loop get stable before the nodes after the loop
+ * are processed.
+ *
+ * @param <Node> type of graph nodes
+ */
+public class WorkList<Node> {
+
+    /**
+     * Nodes in reverse postorder, i.e., the i-th node has rank i.
+     */
+    private final List<Node> order;
+
+    private final Map<Node, Integer> ranks;
+
+    /**
+     * Ranks of the nodes in this work list.
+     */
+    private final BitSet inList;
+
+    /**
+     * Creates an empty work list for the nodes of given graph.
+     *
+     * @param roots   nodes where the depth-first search for reverse postorder
+     *                starts, e.g., the entry of a CFG. Nodes not reachable
+     *                from the roots are ordered after the reachable ones.
+     * @param forward whether to follow the successors (true) or
+     *                the predecessors (false) of the nodes.
+     */
+    public WorkList(Graph<Node> graph, Collection<Node> roots, boolean forward) {
+        this(reversePostOrder(graph, roots, forward));
+    }
+
+    /**
+     * Creates an empty work list for given nodes, which returns
+     * the nodes in given order, e.g., a weak topological order
+     * (see {@link WeakTopologicalOrder}).
+     */
+    public WorkList(List<Node> order) {
+        this.order = order;
+        ranks = Maps.newMap(order.size());
+        for (int i = 0; i < order.size(); ++i) {
+            ranks.put(order.get(i), i);
+        }
+        inList = new BitSet(order.size());
+    }
+
+    /**
+     * Adds a node to this work list.
+     *
+     * @return true if the node was not in this work list.
+     */
+    public boolean add(Node node) {
+        int rank = ranks.get(node);
+        if (inList.get(rank)) {
+            return false;
+        }
+        inList.set(rank);
+        return true;
+    }
+
+    /**
+     * Adds given nodes to this work list.
+     */
+    public void addAll(Collection<Node> nodes) {
+        for (Node node : nodes) {
+            add(node);
+        }
+    }
+
+    public boolean isEmpty() {
+        return inList.isEmpty();
+    }
+
+    /**
+     * Removes and returns the node which has the smallest rank
+     * in this work list, or null if this work list is empty.
+     */
+    public Node poll() {
+        int rank = inList.nextSetBit(0);
+        if (rank < 0) {
+            return null;
+        }
+        inList.clear(rank);
+        return order.get(rank);
+    }
+
+    /**
+     * Computes reverse postorder of the nodes in given graph by depth-first
+     * search from the roots. Nodes that are not reached by the search
+     * are appended at the end.
+     */
+    private static <Node> List<Node> reversePostOrder(
+            Graph<Node> graph, Collection<Node> roots, boolean forward) {
+        List<Node> postOrder = new ArrayList<>(graph.getNumberOfNodes());
+        Set<Node> visited = Sets.newSet(graph.getNumberOfNodes());
+        Deque<Iterator<Node>> stack = new ArrayDeque<>();
+        Deque<Node> path = new ArrayDeque<>();
+        // the roots are searched in reverse order, so that
+        // the first root comes first in the reverse postorder
+        List<Node> reversedRoots = new ArrayList<>(roots);
+        Collections.reverse(reversedRoots);
+        for (Node root : reversedRoots) {
+            if (!visited.add(root)) {
+                continue;
+            }
+            path.push(root);
+            stack.push(neighborsOf(graph, root, forward).iterator());
+            while (!stack.isEmpty()) {
+                Iterator<Node> it = stack.peek();
+                if (it.hasNext()) {
+                    Node next = it.next();
+                    if (visited.add(next)) {
+                        path.push(next);
+                        stack.push(neighborsOf(graph, next, forward).iterator());
+                    }
+                } else {
+                    stack.pop();
+                    postOrder.add(path.pop());
+                }
+            }
+        }
+        Collections.reverse(postOrder);
+        for (Node node : graph) {
+            if (!visited.contains(node)) {
+                postOrder.add(node);
+            }
+        }
+        return postOrder;
+    }
+
+    private static <Node> Set<Node> neighborsOf(
+            Graph<Node> graph, Node node, boolean forward) {
+        return forward ? graph.getSuccsOf(node) : graph.getPredsOf(node);
+    }
+}
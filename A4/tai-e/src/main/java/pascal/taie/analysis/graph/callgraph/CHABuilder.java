@@ -23,6 +23,7 @@
 package pascal.taie.analysis.graph.callgraph;
 
 import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.PrunedIR;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JClass;
@@ -31,6 +32,7 @@ import pascal.taie.language.classes.Subsignature;
 
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -40,6 +42,15 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
     private ClassHierarchy hierarchy;
 
+    /**
+     * If true, the call sites in dead code are not resolved, see {@link PrunedIR}.
+     */
+    private final boolean prune;
+
+    CHABuilder(boolean prune) {
+        this.prune = prune;
+    }
+
     @Override
     public CallGraph<Invoke, JMethod> build() {
         hierarchy = World.get().getClassHierarchy();
@@ -56,7 +67,7 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
         while (!list.isEmpty()) {
             var method = list.pop();
 
-            for (var callSite : callGraph.callSitesIn(method).toList()) {
+            for (var callSite : callSitesIn(callGraph, method)) {
                 for (var m : resolve(callSite)) {
                     if (m == null) {
                         continue;
@@ -75,6 +86,17 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
         return callGraph;
     }
 
+    private List<Invoke> callSitesIn(DefaultCallGraph callGraph, JMethod method) {
+        if (prune) {
+            PrunedIR pruned = PrunedIR.of(method.getIR());
+            return callGraph.callSitesIn(method)
+                    .filter(pruned::isLive)
+                    .toList();
+        } else {
+            return callGraph.callSitesIn(method).toList();
+        }
+    }
+
     /**
      * Resolves call targets (callees) of a call site via CHA.
      */
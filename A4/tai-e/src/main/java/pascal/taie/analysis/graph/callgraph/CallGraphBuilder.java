@@ -48,16 +48,19 @@ public class CallGraphBuilder extends ProgramAnalysis {
 
     private final String algorithm;
 
+    private final boolean prune;
+
     public CallGraphBuilder(AnalysisConfig config) {
         super(config);
         algorithm = config.getOptions().getString("algorithm");
+        prune = config.getOptions().getBooleanOrDefault("prune", false);
     }
 
     @Override
     public CallGraph<Invoke, JMethod> analyze() {
         CGBuilder<Invoke, JMethod> builder;
         if (algorithm.equals("cha")) {
-            builder = new CHABuilder();
+            builder = new CHABuilder(prune);
         } else {
             throw new ConfigException("Unknown call graph building algorithm: " + algorithm);
         }
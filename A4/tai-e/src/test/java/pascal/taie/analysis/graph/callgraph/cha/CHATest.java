@@ -22,8 +22,18 @@
 
 package pascal.taie.analysis.graph.callgraph.cha;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class CHATest {
     
@@ -50,4 +60,20 @@ public class CHATest {
     public void testAbstractMethod() {
         test("AbstractMethod");
     }
+
+    @Test
+    public void testPrune() {
+        Main.main(new String[]{
+                "-pp", "-cp", "src/test/resources/cha/", "-m", "DeadCall",
+                "-a", CallGraphBuilder.ID + "=algorithm:cha;prune:true",
+        });
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        Set<String> reachable = callGraph.reachableMethods()
+                .map(JMethod::toString)
+                .collect(Collectors.toSet());
+        Assert.assertTrue(reachable.contains("<DeadCall: void live()>"));
+        // the handler may catch the implicit exceptions of live()
+        Assert.assertTrue(reachable.contains("<DeadCall: void handle()>"));
+        Assert.assertFalse(reachable.contains("<DeadCall: void dead()>"));
+    }
 }
@@ -0,0 +1,37 @@
+public class DeadCall {
+
+    public static void main(String[] args) {
+        int x = 1;
+        if (x > 2) {
+            dead();
+        } else {
+            live();
+        }
+        int y = x + 1;
+        switch (y) {
+            case 1:
+                dead();
+                break;
+            case 2:
+                live();
+                break;
+            default:
+                dead();
+        }
+        try {
+            live();
+        } catch (RuntimeException e) {
+            handle();
+        }
+    }
+
+    static void live() {
+    }
+
+    static void dead() {
+        live();
+    }
+
+    static void handle() {
+    }
+}
@@ -33,24 +33,27 @@ import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.LineIndex;
 import pascal.taie.util.collection.Maps;
-import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Pair;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.PrintStream;
-import java.nio.file.Files;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -70,9 +73,17 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private final String action;
 
-    private PrintStream out;
+    private OutputStream out;
 
-    private MultiMap<Pair<String, String>, String> inputs;
+    /**
+     * Index of the expected results, see {@link #readInputs()}.
+     */
+    private LineIndex inputs;
+
+    /**
+     * Ranges of the entries of each result in {@link #inputs}.
+     */
+    private Map<Long, List<int[]>> sections;
 
     private Set<String> mismatches;
 
@@ -103,6 +114,9 @@ public class ResultProcessor extends ProgramAnalysis {
         if (groups.containsKey(false)) {
             processIntraResults(groups.get(false));
         }
+        if (action.equals("dump")) {
+            closeOutput();
+        }
         if (getOptions().getBoolean("log-mismatches")) {
             mismatches.forEach(logger::info);
         }
@@ -113,8 +127,8 @@ public class ResultProcessor extends ProgramAnalysis {
         String output = getOptions().getString("file");
         if (output != null) {
             try {
-                out = new PrintStream(output);
-            } catch (FileNotFoundException e) {
+                out = ResultWriter.open(Path.of(output));
+            } catch (IOException e) {
                 throw new RuntimeException("Failed to open output file", e);
             }
         } else {
@@ -122,27 +136,104 @@ public class ResultProcessor extends ProgramAnalysis {
         }
     }
 
+    private void closeOutput() {
+        if (out != System.out) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to close output file", e);
+            }
+        }
+    }
+
+    /**
+     * Reads the expected results into a {@link LineIndex}. Each line of
+     * a result is indexed by the hash of its method, analysis and the
+     * prefix of its statement (see {@link #getLineKey(long, String)}),
+     * and the lines of each result are grouped into sections.
+     */
     private void readInputs() {
         String input = getOptions().getString("file");
         Path path = Path.of(input);
         try {
-            inputs = Maps.newMultiMap();
-            BufferedReader reader = Files.newBufferedReader(path);
-            String line;
-            Pair<String, String> currentKey = null;
-            while ((line = reader.readLine()) != null) {
+            sections = Maps.newMap();
+            int[][] current = new int[1][];
+            long[] currentKey = new long[1];
+            inputs = LineIndex.build(path, (line, index) -> {
                 Pair<String, String> key = extractKey(line);
                 if (key != null) {
-                    currentKey = key;
-                } else if (!line.isBlank()) {
-                    inputs.put(currentKey, line);
+                    currentKey[0] = getResultKey(key.first(), key.second());
+                    current[0] = new int[]{index.size(), index.size()};
+                    sections.computeIfAbsent(currentKey[0], k -> new ArrayList<>())
+                            .add(current[0]);
+                } else if (current[0] != null && !line.isBlank()) {
+                    index.add(getLineKey(currentKey[0], line), LineIndex.hash(line));
+                    current[0][1] = index.size();
                 }
-            }
+            });
         } catch (IOException e) {
             throw new RuntimeException("Failed to read input file", e);
         }
     }
 
+    /**
+     * @return the hash of the result of given method and analysis.
+     */
+    private static long getResultKey(String method, String id) {
+        return LineIndex.combine(LineIndex.hash(method), LineIndex.hash(id));
+    }
+
+    /**
+     * @return the hash of given line of a result. Lines of statements
+     * start with "[index@line]", which is hashed together with the key of
+     * the result, so that the lines of each statement are found directly.
+     * Other lines are only distinguished by the key of the result.
+     */
+    private static long getLineKey(long resultKey, String line) {
+        int end = line.startsWith("[") ? line.indexOf(']') + 1 : 0;
+        return LineIndex.combine(resultKey, LineIndex.hash(line, 0, end));
+    }
+
+    /**
+     * @return the distinct lines of the result of given key
+     * in the expected results, in the order they are read.
+     */
+    private Set<String> readResult(long resultKey) {
+        Set<String> lines = new LinkedHashSet<>();
+        forEachLine(resultKey, entry -> lines.add(inputs.readLine(entry)));
+        return lines;
+    }
+
+    /**
+     * Applies given action to the entries of distinct lines of the result
+     * of given key in the expected results, in the order they are read.
+     */
+    private void forEachLine(long resultKey, IntConsumer action) {
+        Set<Long> visited = new HashSet<>();
+        for (int[] section : sections.getOrDefault(resultKey, List.of())) {
+            for (int entry = section[0]; entry < section[1]; ++entry) {
+                if (visited.add(inputs.getValue(entry))) {
+                    action.accept(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the expected results contain given line
+     * in the result of given key.
+     */
+    private boolean containsLine(long resultKey, String line) {
+        long value = LineIndex.hash(line);
+        for (int entry = inputs.find(getLineKey(resultKey, line)); entry != -1;
+             entry = inputs.findPrevious(entry)) {
+            if (inputs.getValue(entry) == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static Pair<String, String> extractKey(String line) {
         if (line.startsWith("----------") && line.endsWith("----------")) {
             int ms = line.indexOf('<'); // method start
@@ -202,29 +293,50 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private void processResults(Stream<JMethod> methods, List<String> analyses,
                                 BiFunction<JMethod, String, ?> resultGetter) {
-        methods.forEach(method ->
-                analyses.forEach(id -> {
-                    switch (action) {
-                        case "dump" -> dumpResult(method, id, resultGetter);
-                        case "compare" -> compareResult(method, id, resultGetter);
-                    }
-                })
-        );
+        // The results of different methods are processed in parallel,
+        // and then output in the order of given methods, so that the
+        // dumped results and the mismatches are deterministic.
+        List<JMethod> methodList = methods.toList();
+        switch (action) {
+            case "dump" -> {
+                try {
+                    ResultWriter.write(out, Charset.defaultCharset(), methodList,
+                            method -> {
+                                StringWriter buffer = new StringWriter();
+                                PrintWriter writer = new PrintWriter(buffer);
+                                analyses.forEach(id -> dumpResult(
+                                        writer, method, id, resultGetter));
+                                writer.flush();
+                                return buffer.toString();
+                            });
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to write output file", e);
+                }
+            }
+            case "compare" -> methodList.parallelStream()
+                    .map(method -> {
+                        Set<String> methodMismatches = new LinkedHashSet<>();
+                        analyses.forEach(id -> compareResult(
+                                methodMismatches, method, id, resultGetter));
+                        return methodMismatches;
+                    })
+                    .forEachOrdered(mismatches::addAll);
+        }
     }
 
-    private void dumpResult(JMethod method, String id,
-                            BiFunction<JMethod, String, ?> resultGetter) {
-        out.printf("-------------------- %s (%s) --------------------%n", method, id);
+    private static void dumpResult(PrintWriter writer, JMethod method, String id,
+                                   BiFunction<JMethod, String, ?> resultGetter) {
+        writer.printf("-------------------- %s (%s) --------------------%n", method, id);
         Object result = resultGetter.apply(method, id);
         if (result instanceof Set) {
-            ((Set<?>) result).forEach(e -> out.println(toString(e)));
+            ((Set<?>) result).forEach(e -> writer.println(toString(e)));
         } else if (result instanceof StmtResult<?> StmtResult) {
             IR ir = method.getIR();
-            ir.forEach(stmt -> out.println(toString(stmt, StmtResult)));
+            ir.forEach(stmt -> writer.println(toString(stmt, StmtResult)));
         } else {
-            out.println(toString(result));
+            writer.println(toString(result));
         }
-        out.println();
+        writer.println();
     }
 
     /**
@@ -247,65 +359,80 @@ public class ResultProcessor extends ProgramAnalysis {
         return toString(stmt) + " " + toString(result.getResult(stmt));
     }
 
-    private void compareResult(JMethod method, String id,
+    private void compareResult(Set<String> methodMismatches, JMethod method, String id,
                                BiFunction<JMethod, String, ?> resultGetter) {
-        Set<String> inputResult = inputs.get(new Pair<>(method.toString(), id));
+        // the expected results are compared by hashes, and the expected
+        // lines are read from the input file only for the mismatches
+        long resultKey = getResultKey(method.toString(), id);
         Object result = resultGetter.apply(method, id);
         if (result instanceof Set) {
             Set<String> given = ((Set<?>) result)
                     .stream()
                     .map(ResultProcessor::toString)
                     .collect(Collectors.toCollection(LinkedHashSet::new));
+            Set<Long> givenHashes = new HashSet<>();
             given.forEach(s -> {
-                if (!inputResult.contains(s)) {
-                    mismatches.add(method + " " + s +
+                givenHashes.add(LineIndex.hash(s));
+                if (!containsLine(resultKey, s)) {
+                    methodMismatches.add(method + " " + s +
                             " should NOT be included");
                 }
             });
-            inputResult.forEach(s -> {
-                if (!given.contains(s)) {
-                    mismatches.add(method + " " + s +
+            forEachLine(resultKey, entry -> {
+                if (!givenHashes.contains(inputs.getValue(entry))) {
+                    methodMismatches.add(method + " " + inputs.readLine(entry) +
                             " should be included");
                 }
             });
-        } else if (result instanceof StmtResult<?> StmtResult) {
-            Set<String> lines = inputs.get(new Pair<>(method.toString(), id));
+        } else if (result instanceof StmtResult<?> stmtResult) {
             // if the expected input does not contain the results
             // for the given method, just skip
-            if (lines.isEmpty()) {
+            if (!sections.containsKey(resultKey)) {
                 return;
             }
-            IR ir = method.getIR();
-            ir.forEach(stmt -> {
-                String stmtStr = toString(stmt);
-                String given = toString(stmt, StmtResult);
-                boolean foundExpeceted = false;
-                for (String line : lines) {
-                    if (line.startsWith(stmtStr)) {
-                        foundExpeceted = true;
-                        if (!line.equals(given)) {
+            method.getIR()
+                    .stmts()
+                    .filter(stmtResult::isRelevant)
+                    .forEach(stmt -> {
+                        String stmtStr = toString(stmt);
+                        String given = toString(stmt, stmtResult);
+                        long givenHash = LineIndex.hash(given);
+                        boolean foundExpeceted = false;
+                        for (int entry = inputs.find(getLineKey(resultKey, stmtStr));
+                             entry != -1; entry = inputs.findPrevious(entry)) {
+                            if (inputs.getValue(entry) == givenHash) {
+                                foundExpeceted = true;
+                                continue;
+                            }
+                            String line = inputs.readLine(entry);
+                            if (line.startsWith(stmtStr)) {
+                                foundExpeceted = true;
+                                if (!line.equals(given)) {
+                                    int idx = stmtStr.length();
+                                    methodMismatches.add(String.format("%s %s expected: %s, given: %s",
+                                            method, stmtStr, line.substring(idx + 1),
+                                            given.substring(idx + 1)));
+                                }
+                            }
+                        }
+                        if (!foundExpeceted) {
                             int idx = stmtStr.length();
-                            mismatches.add(String.format("%s %s expected: %s, given: %s",
-                                    method, stmtStr, line.substring(idx + 1),
-                                    given.substring(idx + 1)));
+                            methodMismatches.add(String.format("%s %s expected: null, given: %s",
+                                    method, stmtStr, given.substring(idx + 1)));
                         }
-                    }
-                }
-                if (!foundExpeceted) {
-                    int idx = stmtStr.length();
-                    mismatches.add(String.format("%s %s expected: null, given: %s",
-                            method, stmtStr, given.substring(idx + 1)));
+                    });
+        } else {
+            Set<String> inputResult = readResult(resultKey);
+            if (inputResult.size() == 1) {
+                if (!toString(result).equals(getOne(inputResult))) {
+                    methodMismatches.add(String.format("%s expected: %s, given: %s",
+                            method, getOne(inputResult), toString(result)));
                 }
-            });
-        } else if (inputResult.size() == 1) {
-            if (!toString(result).equals(getOne(inputResult))) {
-                mismatches.add(String.format("%s expected: %s, given: %s",
-                        method, getOne(inputResult), toString(result)));
+            } else {
+                logger.warn("Cannot compare result of analysis {} for {}," +
+                                " expected: {}, given: {}",
+                        id, method, inputResult, result);
             }
-        } else {
-            logger.warn("Cannot compare result of analysis {} for {}," +
-                            " expected: {}, given: {}",
-                    id, method, inputResult, result);
         }
     }
 }
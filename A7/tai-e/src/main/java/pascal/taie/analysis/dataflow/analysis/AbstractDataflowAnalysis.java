@@ -35,17 +35,23 @@ public abstract class AbstractDataflowAnalysis<Node, Fact>
         extends MethodAnalysis
         implements DataflowAnalysis<Node, Fact> {
 
-    private final Solver<Node, Fact> solver;
-
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+    }
+
+    /**
+     * Creates a solver for given analysis, which may be this analysis,
+     * or an analysis specialized for a method. Subclasses that override
+     * {@link #analyze(IR)} shall create their solvers by this method.
+     */
+    protected final <F> Solver<Node, F> makeSolver(DataflowAnalysis<Node, F> analysis) {
+        return Solver.makeSolver(analysis);
     }
 
     @Override
     public DataflowResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+        return makeSolver(this).solve(cfg);
     }
 
     /**
@@ -0,0 +1,312 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Pair;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * View of an {@link IR} that only contains the live statements, i.e.,
+ * the statements that may be reached from the entry of the method.
+ * <p>
+ * A statement is dead if it cannot be reached in the CFG, or it can only
+ * be reached through a branch of an {@link If} or {@link SwitchStmt} that
+ * is never taken according to constant propagation. This is the
+ * control-flow part of dead code detection. Dead assignments are kept,
+ * as they may still be needed by the analyses that use this view.
+ * <p>
+ * Analyses that opt in, e.g., call graph construction, iterate the live
+ * statements only, thus the call sites in dead code are never resolved,
+ * and never bring new methods into the program.
+ */
+public class PrunedIR {
+
+    /**
+     * Key of the view stored in {@link IR}.
+     */
+    public static final String ID = "pruned-ir";
+
+    private final IR ir;
+
+    /**
+     * Indexes of the live statements. The entry and exit of the CFG,
+     * whose indexes follow the ones of the statements, are included
+     * if they are reached.
+     */
+    private final BitSet live;
+
+    private List<Stmt> stmts;
+
+    private PrunedIR(IR ir, BitSet live) {
+        this.ir = ir;
+        this.live = live;
+    }
+
+    /**
+     * @return the view of given IR. The view is computed on first request,
+     * and stored in the IR for later requests.
+     */
+    public static PrunedIR of(IR ir) {
+        PrunedIR pruned = ir.getResult(ID);
+        if (pruned == null) {
+            pruned = new PrunedIR(ir, new Walker(ir).walk());
+            ir.storeResult(ID, pruned);
+        }
+        return pruned;
+    }
+
+    /**
+     * @return the IR of this view.
+     */
+    public IR getIR() {
+        return ir;
+    }
+
+    /**
+     * @return true if given statement of the IR, or the entry or exit
+     * of its CFG, is live, otherwise false.
+     */
+    public boolean isLive(Stmt stmt) {
+        return live.get(stmt.getIndex());
+    }
+
+    /**
+     * @return the live statements of the IR, in the order of their indexes.
+     */
+    public List<Stmt> getStmts() {
+        if (stmts == null) {
+            List<Stmt> liveStmts = new ArrayList<>(live.cardinality());
+            int size = ir.getStmts().size();
+            for (int i = live.nextSetBit(0); i >= 0 && i < size;
+                 i = live.nextSetBit(i + 1)) {
+                liveStmts.add(ir.getStmt(i));
+            }
+            stmts = Collections.unmodifiableList(liveStmts);
+        }
+        return stmts;
+    }
+
+    /**
+     * Walks the CFG from the entry, and propagates constants along the walk,
+     * so that a branch whose condition is a constant only leads to the target
+     * it may go to. As this view is also requested by the analyses that run
+     * before the intra-procedural solvers, e.g., call graph construction,
+     * the constants are propagated by the walk itself.
+     */
+    private static class Walker {
+
+        private final IR ir;
+
+        private final CFG<Stmt> cfg;
+
+        private final ConstantPropagation cp;
+
+        /**
+         * OUT facts of the reached nodes, indexed by {@link Stmt#getIndex()}.
+         * A node is reached iff its OUT fact is not null.
+         */
+        private final CPFact[] outs;
+
+        /**
+         * Exception handlers that are reached as they cover a reached
+         * statement, whose variables may hold any values.
+         */
+        private final BitSet caught;
+
+        private final BitSet workList;
+
+        private Walker(IR ir) {
+            this.ir = ir;
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            if (cfg == null) {
+                // the CFG is not built yet, e.g., when this view is requested
+                // by pointer analysis, so we build one without exceptional
+                // edges, whose handlers are covered by the walk anyway
+                cfg = new CFGBuilder(new AnalysisConfig(CFGBuilder.ID,
+                        "exception", "none", "dump", false)).analyze(ir);
+            }
+            this.cfg = cfg;
+            cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+            outs = new CPFact[ir.getStmts().size() + 2];
+            caught = new BitSet();
+            workList = new BitSet(outs.length);
+        }
+
+        private BitSet walk() {
+            Stmt entry = cfg.getEntry();
+            outs[entry.getIndex()] = cp.newBoundaryFact(cfg);
+            addSuccsOf(entry);
+            do {
+                // process the nodes in the order of their indexes,
+                // which mostly follows the control flow
+                for (int i = workList.nextSetBit(0); i >= 0;
+                     i = workList.nextSetBit(0)) {
+                    workList.clear(i);
+                    Stmt node = getNode(i);
+                    CPFact out = outs[i];
+                    boolean reached = out != null;
+                    if (!reached) {
+                        out = outs[i] = cp.newInitialFact();
+                    }
+                    if (cp.transferNode(node, getInFact(node), out) || !reached) {
+                        addSuccsOf(node);
+                    }
+                }
+            } while (catchExceptions());
+            BitSet live = new BitSet(outs.length);
+            for (int i = 0; i < outs.length; ++i) {
+                if (outs[i] != null) {
+                    live.set(i);
+                }
+            }
+            return live;
+        }
+
+        private Stmt getNode(int index) {
+            if (index == cfg.getEntry().getIndex()) {
+                return cfg.getEntry();
+            } else if (index == cfg.getExit().getIndex()) {
+                return cfg.getExit();
+            } else {
+                return ir.getStmt(index);
+            }
+        }
+
+        /**
+         * @return the meet of the OUT facts of the reached predecessors
+         * that may go to given node.
+         */
+        private CPFact getInFact(Stmt node) {
+            CPFact in = cp.newInitialFact();
+            for (Stmt pred : cfg.getPredsOf(node)) {
+                CPFact predOut = outs[pred.getIndex()];
+                if (predOut != null && mayGoTo(pred, predOut, node)) {
+                    cp.meetInto(predOut, in);
+                }
+            }
+            if (caught.get(node.getIndex())) {
+                for (Var var : ir.getVars()) {
+                    if (ConstantPropagation.canHoldInt(var)) {
+                        in.update(var, Value.getNAC());
+                    }
+                }
+            }
+            return in;
+        }
+
+        private void addSuccsOf(Stmt node) {
+            CPFact out = outs[node.getIndex()];
+            for (Stmt succ : cfg.getSuccsOf(node)) {
+                if (mayGoTo(node, out, succ)) {
+                    workList.set(succ.getIndex());
+                }
+            }
+        }
+
+        /**
+         * Reaches the exception handlers that cover any reached statement,
+         * as they may catch the implicit exceptions of the statement,
+         * which are not represented by the CFG edges.
+         *
+         * @return true if any handler is newly reached.
+         */
+        private boolean catchExceptions() {
+            boolean changed = false;
+            for (ExceptionEntry entry : ir.getExceptionEntries()) {
+                int handler = entry.handler().getIndex();
+                if (!caught.get(handler) && isReachedIn(
+                        entry.start().getIndex(), entry.end().getIndex())) {
+                    caught.set(handler);
+                    workList.set(handler);
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        private boolean isReachedIn(int start, int end) {
+            for (int i = start; i < end; ++i) {
+                if (outs[i] != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return true if given node, whose OUT fact is {@code out},
+         * may go to given successor, otherwise false.
+         */
+        private boolean mayGoTo(Stmt node, CPFact out, Stmt succ) {
+            Stmt onlyTarget = getOnlyTarget(node, out);
+            return onlyTarget == null || onlyTarget == succ;
+        }
+
+        /**
+         * @return the only target that given node may go to if it is
+         * a branch whose condition is a constant, otherwise null.
+         */
+        private Stmt getOnlyTarget(Stmt node, CPFact out) {
+            if (node instanceof If ifStmt) {
+                Value cond = ConstantPropagation.evaluate(ifStmt.getCondition(), out);
+                if (cond != null && cond.isConstant()) {
+                    Edge.Kind kind = cond.getConstant() != 0 ?
+                            Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE;
+                    for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                        if (edge.getKind() == kind) {
+                            return edge.getTarget();
+                        }
+                    }
+                }
+            } else if (node instanceof SwitchStmt switchStmt) {
+                Value value = out.get(switchStmt.getVar());
+                if (value.isConstant()) {
+                    for (Pair<Integer, Stmt> caseTarget : switchStmt.getCaseTargets()) {
+                        if (caseTarget.first() == value.getConstant()) {
+                            return caseTarget.second();
+                        }
+                    }
+                    return switchStmt.getDefaultTarget();
+                }
+            }
+            return null;
+        }
+    }
+}
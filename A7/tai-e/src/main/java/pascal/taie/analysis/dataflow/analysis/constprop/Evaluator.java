@@ -0,0 +1,282 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.BitwiseExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.ShiftExp;
+import pascal.taie.ir.exp.Var;
+
+import javax.annotation.Nullable;
+
+/**
+ * Precompiled evaluator of the right-hand side of a definition statement,
+ * see {@link ConstantPropagation#compile(pascal.taie.ir.stmt.Stmt)}.
+ * The operands and operator of the expression are resolved when the
+ * evaluator is created, so that evaluating it does not dispatch on
+ * the types of the expression.
+ */
+public abstract class Evaluator {
+
+    @Nullable
+    private final Var lValue;
+
+    Evaluator(@Nullable Var lValue) {
+        this.lValue = lValue;
+    }
+
+    /**
+     * @return the variable defined by the statement, or null if
+     * this evaluator is compiled for a standalone expression.
+     */
+    @Nullable
+    public Var getLValue() {
+        return lValue;
+    }
+
+    /**
+     * @return the value of the expression in given fact,
+     * or null if the expression is not supported.
+     */
+    @Nullable
+    public abstract Value evaluate(CPFact in);
+
+    /**
+     * Evaluates given binary expression without compiling it.
+     *
+     * @return the value of the expression in given fact,
+     * or null if the expression is not supported.
+     */
+    @Nullable
+    static Value evaluate(BinaryExp exp, CPFact in) {
+        Value v1 = in.get(exp.getOperand1()), v2 = in.get(exp.getOperand2());
+        if (v1.isNAC() || v2.isNAC()) {
+            return Value.getNAC();
+        } else if (v1.isUndef() || v2.isUndef()) {
+            return Value.getUndef();
+        }
+        int op1 = v1.getConstant(), op2 = v2.getConstant();
+        if (exp instanceof ArithmeticExp arithmeticExp) {
+            return Arithmetic.apply(arithmeticExp.getOperator(), op1, op2);
+        } else if (exp instanceof BitwiseExp bitwiseExp) {
+            return Bitwise.apply(bitwiseExp.getOperator(), op1, op2);
+        } else if (exp instanceof ConditionExp conditionExp) {
+            return Condition.apply(conditionExp.getOperator(), op1, op2);
+        } else if (exp instanceof ShiftExp shiftExp) {
+            return Shift.apply(shiftExp.getOperator(), op1, op2);
+        } else {
+            return null;
+        }
+    }
+
+    static Evaluator ofBinary(@Nullable Var lValue, BinaryExp exp) {
+        Var operand1 = exp.getOperand1();
+        Var operand2 = exp.getOperand2();
+        if (exp instanceof ArithmeticExp arithmeticExp) {
+            return new Arithmetic(lValue, operand1, operand2, arithmeticExp.getOperator());
+        } else if (exp instanceof BitwiseExp bitwiseExp) {
+            return new Bitwise(lValue, operand1, operand2, bitwiseExp.getOperator());
+        } else if (exp instanceof ConditionExp conditionExp) {
+            return new Condition(lValue, operand1, operand2, conditionExp.getOperator());
+        } else if (exp instanceof ShiftExp shiftExp) {
+            return new Shift(lValue, operand1, operand2, shiftExp.getOperator());
+        } else {
+            return new UnsupportedBinary(lValue, operand1, operand2);
+        }
+    }
+
+    static final class Variable extends Evaluator {
+
+        private final Var var;
+
+        Variable(@Nullable Var lValue, Var var) {
+            super(lValue);
+            this.var = var;
+        }
+
+        @Override
+        public Value evaluate(CPFact in) {
+            return in.get(var);
+        }
+    }
+
+    static final class Constant extends Evaluator {
+
+        private final Value value;
+
+        Constant(@Nullable Var lValue, Value value) {
+            super(lValue);
+            this.value = value;
+        }
+
+        @Override
+        public Value evaluate(CPFact in) {
+            return value;
+        }
+    }
+
+    private abstract static class Binary extends Evaluator {
+
+        private final Var operand1;
+
+        private final Var operand2;
+
+        private Binary(@Nullable Var lValue, Var operand1, Var operand2) {
+            super(lValue);
+            this.operand1 = operand1;
+            this.operand2 = operand2;
+        }
+
+        @Override
+        public final Value evaluate(CPFact in) {
+            Value v1 = in.get(operand1), v2 = in.get(operand2);
+            if (v1.isNAC() || v2.isNAC()) {
+                return Value.getNAC();
+            } else if (v1.isUndef() || v2.isUndef()) {
+                return Value.getUndef();
+            }
+            return apply(v1.getConstant(), v2.getConstant());
+        }
+
+        abstract Value apply(int op1, int op2);
+    }
+
+    private static final class Arithmetic extends Binary {
+
+        private final ArithmeticExp.Op op;
+
+        private Arithmetic(@Nullable Var lValue, Var operand1, Var operand2,
+                           ArithmeticExp.Op op) {
+            super(lValue, operand1, operand2);
+            this.op = op;
+        }
+
+        @Override
+        Value apply(int op1, int op2) {
+            return apply(op, op1, op2);
+        }
+
+        private static Value apply(ArithmeticExp.Op op, int op1, int op2) {
+            return switch (op) {
+                case ADD -> Value.makeConstant(op1 + op2);
+                case DIV -> op2 == 0 ? Value.getUndef() : Value.makeConstant(op1 / op2);
+                case MUL -> Value.makeConstant(op1 * op2);
+                case REM -> op2 == 0 ? Value.getUndef() : Value.makeConstant(op1 % op2);
+                case SUB -> Value.makeConstant(op1 - op2);
+            };
+        }
+    }
+
+    private static final class Bitwise extends Binary {
+
+        private final BitwiseExp.Op op;
+
+        private Bitwise(@Nullable Var lValue, Var operand1, Var operand2,
+                        BitwiseExp.Op op) {
+            super(lValue, operand1, operand2);
+            this.op = op;
+        }
+
+        @Override
+        Value apply(int op1, int op2) {
+            return apply(op, op1, op2);
+        }
+
+        private static Value apply(BitwiseExp.Op op, int op1, int op2) {
+            return switch (op) {
+                case OR -> Value.makeConstant(op1 | op2);
+                case AND -> Value.makeConstant(op1 & op2);
+                case XOR -> Value.makeConstant(op1 ^ op2);
+            };
+        }
+    }
+
+    private static final class Condition extends Binary {
+
+        private final ConditionExp.Op op;
+
+        private Condition(@Nullable Var lValue, Var operand1, Var operand2,
+                          ConditionExp.Op op) {
+            super(lValue, operand1, operand2);
+            this.op = op;
+        }
+
+        @Override
+        Value apply(int op1, int op2) {
+            return apply(op, op1, op2);
+        }
+
+        private static Value apply(ConditionExp.Op op, int op1, int op2) {
+            boolean condition = switch (op) {
+                case EQ -> op1 == op2;
+                case GE -> op1 >= op2;
+                case GT -> op1 > op2;
+                case LE -> op1 <= op2;
+                case LT -> op1 < op2;
+                case NE -> op1 != op2;
+            };
+            return Value.makeConstant(condition ? 1 : 0);
+        }
+    }
+
+    private static final class Shift extends Binary {
+
+        private final ShiftExp.Op op;
+
+        private Shift(@Nullable Var lValue, Var operand1, Var operand2,
+                      ShiftExp.Op op) {
+            super(lValue, operand1, operand2);
+            this.op = op;
+        }
+
+        @Override
+        Value apply(int op1, int op2) {
+            return apply(op, op1, op2);
+        }
+
+        private static Value apply(ShiftExp.Op op, int op1, int op2) {
+            return switch (op) {
+                case SHL -> Value.makeConstant(op1 << op2);
+                case SHR -> Value.makeConstant(op1 >> op2);
+                case USHR -> Value.makeConstant(op1 >>> op2);
+            };
+        }
+    }
+
+    /**
+     * Binary expressions on non-int values, e.g., {@code lcmp}.
+     */
+    private static final class UnsupportedBinary extends Binary {
+
+        private UnsupportedBinary(@Nullable Var lValue, Var operand1, Var operand2) {
+            super(lValue, operand1, operand2);
+        }
+
+        @Override
+        Value apply(int op1, int op2) {
+            return null;
+        }
+    }
+}
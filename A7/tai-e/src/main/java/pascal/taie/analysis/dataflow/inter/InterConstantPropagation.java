@@ -23,8 +23,10 @@
 package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.PrunedIR;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Evaluator;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
@@ -39,8 +41,12 @@ import pascal.taie.ir.stmt.*;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
 
+import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of interprocedural constant propagation for int values.
@@ -51,6 +57,11 @@ public class InterConstantPropagation extends AbstractInterDataflowAnalysis<JMet
 
     private final ConstantPropagation cp;
 
+    /**
+     * If true, the statements in dead code are skipped, see {@link PrunedIR}.
+     */
+    private final boolean prune;
+
     private PointerAnalysisResult pta;
 
     private LinkedList<StoreArray> storeArrays;
@@ -61,10 +72,17 @@ public class InterConstantPropagation extends AbstractInterDataflowAnalysis<JMet
 
     private LinkedList<LoadField> loadFields;
 
+    /**
+     * Compiled right-hand sides of the statements in the ICFG.
+     */
+    private Map<Stmt, Evaluator> evaluators;
+
 
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
-        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID,
+                "fact", getOptions().getString("fact")));
+        prune = getOptions().getBooleanOrDefault("prune", false);
     }
 
     @Override
@@ -76,7 +94,12 @@ public class InterConstantPropagation extends AbstractInterDataflowAnalysis<JMet
         storeFields = new LinkedList<>();
         loadArrays = new LinkedList<>();
         loadFields = new LinkedList<>();
+        evaluators = Maps.newMap();
         for (var stmt : icfg) {
+            Evaluator evaluator = ConstantPropagation.compile(stmt);
+            if (evaluator != null) {
+                evaluators.put(stmt, evaluator);
+            }
             if (stmt instanceof StoreArray storeArray) {
                 storeArrays.add(storeArray);
             } else if (stmt instanceof StoreField storeField) {
@@ -89,6 +112,24 @@ public class InterConstantPropagation extends AbstractInterDataflowAnalysis<JMet
         }
     }
 
+    @Override
+    public Collection<? extends Stmt> getDependentsOf(Stmt stmt) {
+        // loads read the values of the aliased stores, see transferLoadField()
+        // and transferLoadArray()
+        if (stmt instanceof StoreField) {
+            return loadFields;
+        } else if (stmt instanceof StoreArray) {
+            return loadArrays;
+        }
+        return List.of();
+    }
+
+    @Override
+    public boolean isLive(Stmt stmt) {
+        return !prune || PrunedIR.of(
+                icfg.getContainingMethodOf(stmt).getIR()).isLive(stmt);
+    }
+
     @Override
     public boolean isForward() {
         return cp.isForward();
@@ -114,17 +155,17 @@ public class InterConstantPropagation extends AbstractInterDataflowAnalysis<JMet
     protected boolean transferCallNode(Stmt stmt, CPFact in, CPFact out) {
         // TODO - finish me
         if (stmt.getDef().isEmpty()) {
-            return cp.transferNode(stmt, in, out);
+            return cp.transferNode(evaluators.get(stmt), in, out);
         }
 
         var lValue = stmt.getDef().get();
 
         if (!(lValue instanceof Var)) {
-            return cp.transferNode(stmt, in, out);
+            return cp.transferNode(evaluators.get(stmt), in, out);
         }
         var copy = out.copy();
 
-        cp.transferNode(stmt, in, copy);
+        cp.transferNode(evaluators.get(stmt), in, copy);
 
         copy.update((Var) lValue, Value.getUndef());
 
@@ -145,7 +186,7 @@ public class InterConstantPropagation extends AbstractInterDataflowAnalysis<JMet
             return transferLoadArray(loadArray, in, out);
         }
         var out_copy = out.copy();
-        var change = cp.transferNode(stmt, in, out);
+        var change = cp.transferNode(evaluators.get(stmt), in, out);
         if (change) {
             var delta = new CPFact();
             for (var o : out.keySet()) {
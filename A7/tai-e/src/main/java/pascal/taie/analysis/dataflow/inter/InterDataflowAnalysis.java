@@ -24,6 +24,9 @@ package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Template interface for defining inter-procedural data-flow analysis.
  *
@@ -71,4 +74,23 @@ public interface InterDataflowAnalysis<Node, Fact> {
      * @return the result of edge transfer function.
      */
     Fact transferEdge(ICFGEdge<Node> edge, Fact out);
+
+    /**
+     * @return the nodes whose facts depend on the facts of given node
+     * other than through the ICFG edges of the node, e.g., the loads which
+     * may read the values written by a store. This is used to find the
+     * nodes to re-solve when the analysis is re-solved incrementally.
+     */
+    default Collection<? extends Node> getDependentsOf(Node node) {
+        return List.of();
+    }
+
+    /**
+     * @return false if given node can never be reached, otherwise true.
+     * The solver skips the nodes that are not live, and leaves their facts
+     * initial. By default, all nodes are live.
+     */
+    default boolean isLive(Node node) {
+        return true;
+    }
 }
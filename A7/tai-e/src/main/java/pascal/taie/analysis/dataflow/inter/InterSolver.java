@@ -23,11 +23,24 @@
 package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
+import pascal.taie.analysis.dataflow.solver.DirtyEdges;
+import pascal.taie.analysis.dataflow.solver.WeakTopologicalOrder;
+import pascal.taie.analysis.dataflow.solver.WorkList;
 import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.NormalEdge;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -44,55 +57,203 @@ class InterSolver<Method, Node, Fact> {
 
     private DataflowResult<Node, Fact> result;
 
-    private Queue<Node> workList;
+    private WorkList<Node> workList;
 
-    InterSolver(InterDataflowAnalysis<Node, Fact> analysis, ICFG<Method, Node> icfg) {
+    private DirtyEdges<Node, ICFGEdge<Node>> changedEdges;
+
+    /**
+     * Whether the nodes of each method are processed in weak topological
+     * order, see {@link #getWTOOrder()}.
+     */
+    private final boolean wto;
+
+    InterSolver(InterDataflowAnalysis<Node, Fact> analysis, ICFG<Method, Node> icfg,
+                boolean wto) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.wto = wto;
     }
 
     DataflowResult<Node, Fact> solve() {
-        result = new DataflowResult<>();
+        result = newResult();
         initialize();
         doSolve();
         return result;
     }
 
-    private void initialize() {
-        // TODO - finish me
-        workList = new LinkedList<>();
-        for (var node : icfg) {
-            var method = icfg.getContainingMethodOf(node);
-            if (icfg.getEntryOf(method) == node && icfg.entryMethods().anyMatch(entry -> entry == method)) {
+    /**
+     * Re-solves the analysis incrementally, starting from a result
+     * previously computed by this solver on the same ICFG.
+     * <p>
+     * Only the facts of the nodes that may be affected by the changed nodes,
+     * i.e., the nodes reachable from them along the ICFG edges or through
+     * {@link InterDataflowAnalysis#getDependentsOf(Object)}, are reset and
+     * re-solved. The facts of other nodes do not depend on the changed
+     * nodes, thus the result is the same fixed point as {@link #solve()}.
+     *
+     * @param result  the previous result, which is updated in place
+     * @param changed the nodes whose transfer functions changed, including
+     *                the entry nodes whose boundary facts changed
+     * @return the re-solved result
+     */
+    DataflowResult<Node, Fact> solve(DataflowResult<Node, Fact> result,
+                                     Collection<Node> changed) {
+        this.result = result;
+        List<Node> entries = icfg.entryMethods().map(icfg::getEntryOf).toList();
+        workList = newWorkList(entries);
+        changedEdges = new DirtyEdges<>();
+        for (Node node : getAffectedNodes(changed)) {
+            if (entries.contains(node)) {
                 result.setOutFact(node, analysis.newBoundaryFact(node));
             } else {
                 result.setOutFact(node, analysis.newInitialFact());
                 result.setInFact(node, analysis.newInitialFact());
+                if (analysis.isLive(node)) {
+                    workList.add(node);
+                }
             }
         }
+        doSolve();
+        return result;
     }
 
-    private void doSolve() {
+    /**
+     * @return the nodes whose facts may depend on the given nodes,
+     * including the given nodes.
+     */
+    private Set<Node> getAffectedNodes(Collection<Node> changed) {
+        Set<Node> affected = Sets.newSet();
+        Deque<Node> stack = new ArrayDeque<>();
+        for (Node node : changed) {
+            if (affected.add(node)) {
+                stack.push(node);
+            }
+        }
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            for (Node succ : icfg.getSuccsOf(node)) {
+                if (affected.add(succ)) {
+                    stack.push(succ);
+                }
+            }
+            for (Node dependent : analysis.getDependentsOf(node)) {
+                if (affected.add(dependent)) {
+                    stack.push(dependent);
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Creates an empty data-flow result whose facts are kept in arrays
+     * indexed by dense ids, which are assigned to the ICFG nodes here.
+     */
+    private DataflowResult<Node, Fact> newResult() {
+        Map<Node, Integer> ids = Maps.newMap(icfg.getNumberOfNodes());
+        for (Node node : icfg) {
+            ids.put(node, ids.size());
+        }
+        return new IndexedDataflowResult<>(
+                node -> ids.getOrDefault(node, -1), ids.size());
+    }
+
+    private WorkList<Node> newWorkList(List<Node> entries) {
+        return wto ? new WorkList<>(getWTOOrder()) :
+                new WorkList<>(icfg, entries, true);
+    }
+
+    /**
+     * @return the nodes of the ICFG grouped by methods, where the nodes of
+     * each method are in the weak topological order of its CFG, and the
+     * methods are in breadth-first order of the calls from the entry methods.
+     * The work list picks the first node in this order, thus each loop
+     * in a method gets stable before the nodes after it are processed.
+     */
+    private List<Node> getWTOOrder() {
+        Map<Method, List<Node>> nodesOf = Maps.newMap();
+        List<Method> methods = new ArrayList<>();
+        for (Node node : icfg) {
+            nodesOf.computeIfAbsent(icfg.getContainingMethodOf(node), method -> {
+                methods.add(method);
+                return new ArrayList<>();
+            }).add(node);
+        }
+        List<Node> order = new ArrayList<>(icfg.getNumberOfNodes());
+        Set<Method> ordered = Sets.newSet();
+        Deque<Method> queue = new ArrayDeque<>();
+        icfg.entryMethods().forEach(queue::add);
+        // methods that are not called from the entry methods come last
+        queue.addAll(methods);
+        while (!queue.isEmpty()) {
+            Method method = queue.poll();
+            if (!ordered.add(method) || !nodesOf.containsKey(method)) {
+                continue;
+            }
+            List<Node> nodes = WeakTopologicalOrder.of(nodesOf.get(method),
+                    List.of(icfg.getEntryOf(method)), this::getIntraSuccsOf).getNodes();
+            order.addAll(nodes);
+            for (Node node : nodes) {
+                if (icfg.isCallSite(node)) {
+                    for (Method callee : icfg.getCalleesOf(node)) {
+                        if (!ordered.contains(callee)) {
+                            queue.addFirst(callee);
+                        }
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * @return the successors of given node in the same method.
+     */
+    private List<Node> getIntraSuccsOf(Node node) {
+        return icfg.getOutEdgesOf(node)
+                .stream()
+                .filter(edge -> edge instanceof NormalEdge<Node> ||
+                        edge instanceof CallToReturnEdge<Node>)
+                .map(ICFGEdge::getTarget)
+                .toList();
+    }
+
+    private void initialize() {
         // TODO - finish me
-        // add all nodes except the entry node.
+        List<Node> entries = icfg.entryMethods().map(icfg::getEntryOf).toList();
+        workList = newWorkList(entries);
+        changedEdges = new DirtyEdges<>();
         for (var node : icfg) {
-            var m = icfg.getContainingMethodOf(node);
-            if (icfg.getEntryOf(m) == node && icfg.entryMethods().anyMatch(entry -> entry == m)) {
-                continue;
+            if (entries.contains(node)) {
+                result.setOutFact(node, analysis.newBoundaryFact(node));
+            } else {
+                result.setOutFact(node, analysis.newInitialFact());
+                result.setInFact(node, analysis.newInitialFact());
+                // add all live nodes except the entry node.
+                if (analysis.isLive(node)) {
+                    workList.add(node);
+                }
             }
-            workList.add(node);
         }
+    }
 
+    private void doSolve() {
+        // TODO - finish me
         while (!workList.isEmpty()) {
-            var node = workList.remove();
+            var node = workList.poll();
             var target = result.getInFact(node);
-            for (var prevEdge : icfg.getInEdgesOf(node)) {
+            for (var prevEdge : changedEdges.take(node, icfg.getInEdgesOf(node))) {
                 var fact = analysis.transferEdge(prevEdge, result.getOutFact(prevEdge.getSource()));
                 analysis.meetInto(fact, target);
             }
 
             if (analysis.transferNode(node, target, result.getOutFact(node))) {
-                workList.addAll(icfg.getSuccsOf(node));
+                for (var edge : icfg.getOutEdgesOf(node)) {
+                    if (analysis.isLive(edge.getTarget())) {
+                        workList.add(edge.getTarget());
+                        changedEdges.mark(edge.getTarget(), edge);
+                    }
+                }
             }
         }
 
@@ -103,6 +264,8 @@ class InterSolver<Method, Node, Fact> {
     }
 
     public void addWorkList(Node node) {
-        workList.add(node);
+        if (analysis.isLive(node)) {
+            workList.add(node);
+        }
     }
 }
@@ -0,0 +1,293 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.Graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Weak topological order (WTO) of a graph, computed by Bourdoncle's
+ * algorithm (F. Bourdoncle, Efficient chaotic iteration strategies with
+ * widenings, 1993).
+ * <p>
+ * A WTO is a list of elements, each of which is either a node, or a
+ * component that consists of a head and a WTO of the other nodes in the
+ * component. Every component is a strongly connected part of the graph,
+ * e.g., a loop whose head is the loop header, and the components nest
+ * like the loops. For every edge u -> v, either u comes before v, or v is
+ * the head of a component containing u, i.e., the edge is a back edge.
+ * Thus, a solver which stabilizes each component before moving on to the
+ * elements after it (see {@link WTOSolver}) never revisits the nodes
+ * outside a loop before the loop gets stable.
+ *
+ * @param <Node> type of graph nodes
+ */
+public class WeakTopologicalOrder<Node> {
+
+    /**
+     * Element of a weak topological order.
+     */
+    public interface Element<Node> {
+    }
+
+    /**
+     * Node that is not a head of any component.
+     */
+    public record Vertex<Node>(Node node) implements Element<Node> {
+    }
+
+    /**
+     * Component with given head, whose other nodes are in {@code elements}.
+     */
+    public record Component<Node>(Node head, List<Element<Node>> elements)
+            implements Element<Node> {
+    }
+
+    /**
+     * Depth-first number of the nodes that are completely visited.
+     */
+    private static final int DONE = Integer.MAX_VALUE;
+
+    private final List<Element<Node>> elements;
+
+    private final List<Node> nodes;
+
+    private WeakTopologicalOrder(List<Element<Node>> elements, int size) {
+        this.elements = elements;
+        this.nodes = new ArrayList<>(size);
+        flatten(elements, nodes);
+    }
+
+    /**
+     * Computes the weak topological order of the nodes of given graph.
+     *
+     * @param roots   nodes where the depth-first search starts, e.g., the entry
+     *                of a CFG. Nodes not reachable from the roots are ordered
+     *                after the reachable ones.
+     * @param forward whether to follow the successors (true) or
+     *                the predecessors (false) of the nodes.
+     */
+    public static <Node> WeakTopologicalOrder<Node> of(
+            Graph<Node> graph, Collection<Node> roots, boolean forward) {
+        List<Node> nodes = new ArrayList<>(graph.getNumberOfNodes());
+        graph.forEach(nodes::add);
+        return of(nodes, roots, forward ? graph::getSuccsOf : graph::getPredsOf);
+    }
+
+    /**
+     * Computes the weak topological order of given nodes, where the edges
+     * are given by {@code succsOf}. This allows to order a part of a graph,
+     * e.g., the nodes of a method in an ICFG, without call and return edges.
+     *
+     * @param succsOf returns the successors of a node, which must be
+     *                in {@code nodes}.
+     */
+    public static <Node> WeakTopologicalOrder<Node> of(
+            Collection<Node> nodes, Collection<Node> roots,
+            Function<Node, ? extends Collection<Node>> succsOf) {
+        Builder<Node> builder = new Builder<>(succsOf, nodes.size());
+        List<Element<Node>> elements = new ArrayList<>();
+        for (Node root : roots) {
+            builder.build(root, elements);
+        }
+        for (Node node : nodes) {
+            builder.build(node, elements);
+        }
+        return new WeakTopologicalOrder<>(elements, nodes.size());
+    }
+
+    private static <Node> void flatten(List<Element<Node>> elements, List<Node> nodes) {
+        for (Element<Node> element : elements) {
+            if (element instanceof Component<Node> component) {
+                nodes.add(component.head());
+                flatten(component.elements(), nodes);
+            } else {
+                nodes.add(((Vertex<Node>) element).node());
+            }
+        }
+    }
+
+    /**
+     * @return the top-level elements of this order.
+     */
+    public List<Element<Node>> getElements() {
+        return elements;
+    }
+
+    /**
+     * @return all nodes in this order, where the head of each component
+     * comes right before the other nodes in the component.
+     */
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Iterative implementation of Bourdoncle's algorithm, which does not
+     * overflow the call stack on large graphs.
+     */
+    private static class Builder<Node> {
+
+        private final Function<Node, ? extends Collection<Node>> succsOf;
+
+        /**
+         * Depth-first numbers of the visited nodes, 0 for the nodes that are
+         * not visited yet, or whose component is being computed.
+         */
+        private final Map<Node, Integer> dfn;
+
+        /**
+         * Nodes that are visited but not yet put in any partition.
+         */
+        private final Deque<Node> stack = new ArrayDeque<>();
+
+        private final Deque<Frame<Node>> frames = new ArrayDeque<>();
+
+        private int num = 0;
+
+        private Builder(Function<Node, ? extends Collection<Node>> succsOf, int size) {
+            this.succsOf = succsOf;
+            this.dfn = Maps.newMap(size);
+        }
+
+        /**
+         * Frame of visiting a node (procedure visit() in the paper),
+         * or computing the component of a head (procedure component()).
+         */
+        private static class Frame<Node> {
+
+            private final Node node;
+
+            private final Iterator<Node> succs;
+
+            private final boolean isComponent;
+
+            /**
+             * Partition where the elements found by this frame are
+             * prepended, i.e., the result in reverse order.
+             */
+            private final Deque<Element<Node>> partition;
+
+            /**
+             * Partition where the component is prepended when
+             * this frame is completed, only used by component frames.
+             */
+            private final Deque<Element<Node>> outer;
+
+            private int head;
+
+            private boolean loop;
+
+            private Frame(Node node, Iterator<Node> succs, boolean isComponent,
+                          Deque<Element<Node>> partition,
+                          Deque<Element<Node>> outer) {
+                this.node = node;
+                this.succs = succs;
+                this.isComponent = isComponent;
+                this.partition = partition;
+                this.outer = outer;
+            }
+        }
+
+        private int getDfn(Node node) {
+            return dfn.getOrDefault(node, 0);
+        }
+
+        /**
+         * Computes the order of the nodes reachable from given node that are
+         * not ordered yet, and appends the result to {@code elements}.
+         */
+        private void build(Node root, List<Element<Node>> elements) {
+            if (getDfn(root) != 0) {
+                return;
+            }
+            Deque<Element<Node>> partition = new ArrayDeque<>();
+            visit(root, partition);
+            while (!frames.isEmpty()) {
+                Frame<Node> frame = frames.peek();
+                if (frame.succs.hasNext()) {
+                    Node succ = frame.succs.next();
+                    int succDfn = getDfn(succ);
+                    if (succDfn == 0) {
+                        visit(succ, frame.partition);
+                    } else if (!frame.isComponent) {
+                        updateHead(frame, succDfn);
+                    }
+                    continue;
+                }
+                frames.pop();
+                if (frame.isComponent) {
+                    frame.outer.addFirst(new Component<>(
+                            frame.node, List.copyOf(frame.partition)));
+                    continue;
+                }
+                int head = frame.head;
+                Frame<Node> parent = frames.peek();
+                if (parent != null && !parent.isComponent) {
+                    updateHead(parent, head);
+                }
+                if (head == getDfn(frame.node)) {
+                    dfn.put(frame.node, DONE);
+                    Node element = stack.pop();
+                    if (frame.loop) {
+                        while (!element.equals(frame.node)) {
+                            dfn.put(element, 0);
+                            element = stack.pop();
+                        }
+                        frames.push(new Frame<>(frame.node,
+                                succsOf.apply(frame.node).iterator(), true,
+                                new ArrayDeque<>(), frame.partition));
+                    } else {
+                        frame.partition.addFirst(new Vertex<>(frame.node));
+                    }
+                }
+            }
+            elements.addAll(partition);
+        }
+
+        private void visit(Node node, Deque<Element<Node>> partition) {
+            stack.push(node);
+            dfn.put(node, ++num);
+            Frame<Node> frame = new Frame<>(node, succsOf.apply(node).iterator(),
+                    false, partition, null);
+            frame.head = num;
+            frames.push(frame);
+        }
+
+        private static <Node> void updateHead(Frame<Node> frame, int min) {
+            if (min <= frame.head) {
+                frame.head = min;
+                frame.loop = true;
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ package pascal.taie.analysis.pta.cs;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.PrunedIR;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.Edge;
@@ -48,6 +49,7 @@ import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Copy;
@@ -55,6 +57,7 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.LoadArray;
 import pascal.taie.ir.stmt.LoadField;
 import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.StmtVisitor;
 import pascal.taie.ir.stmt.StoreArray;
 import pascal.taie.ir.stmt.StoreField;
@@ -73,6 +76,12 @@ class Solver {
 
     private final ContextSelector contextSelector;
 
+    /**
+     * If true, the statements in dead code are not processed,
+     * see {@link PrunedIR}.
+     */
+    private final boolean prune;
+
     private CSManager csManager;
 
     private CSCallGraph callGraph;
@@ -87,6 +96,7 @@ class Solver {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.prune = options.getBooleanOrDefault("prune", false);
     }
 
     void solve() {
@@ -117,8 +127,8 @@ class Solver {
         }
         callGraph.addReachableMethod(csMethod);
         StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
-        for (var stmt : csMethod.getMethod().getIR().getStmts()) {
-            System.out.println(stmt);
+        IR ir = csMethod.getMethod().getIR();
+        for (var stmt : prune ? PrunedIR.of(ir).getStmts() : ir.getStmts()) {
             stmt.accept(stmtProcessor);
         }
     }
@@ -214,6 +224,14 @@ class Solver {
         }
     }
 
+    /**
+     * @return true if given statement, which uses variable {@code var},
+     * is not in dead code or option "prune" is false, otherwise false.
+     */
+    private boolean isLive(Var var, Stmt stmt) {
+        return !prune || PrunedIR.of(var.getMethod().getIR()).isLive(stmt);
+    }
+
     /**
      * Adds an edge "source -> target" to the PFG.
      */
@@ -239,22 +257,34 @@ class Solver {
                 for (var obj : delta) {
                     var var = csVar.getVar();
                     for (var e : var.getLoadArrays()) {
+                        if (!isLive(var, e)) {
+                            continue;
+                        }
                         var target = csManager.getCSVar(context, e.getLValue());
                         var source = csManager.getArrayIndex(obj);
                         addPFGEdge(source, target);
                     }
                     for (var e : var.getStoreArrays()) {
+                        if (!isLive(var, e)) {
+                            continue;
+                        }
                         var source = csManager.getCSVar(context, e.getRValue());
                         var target = csManager.getArrayIndex(obj);
                         addPFGEdge(source, target);
                     }
                     for (var e : var.getLoadFields()) {
+                        if (!isLive(var, e)) {
+                            continue;
+                        }
                         var source = csManager.getInstanceField(obj, e.getFieldRef().resolve());
                         var target = csManager.getCSVar(context, e.getLValue());
                         addPFGEdge(source, target);
                     }
 
                     for (var e : var.getStoreFields()) {
+                        if (!isLive(var, e)) {
+                            continue;
+                        }
                         var source = csManager.getCSVar(context, e.getRValue());
                         var target = csManager.getInstanceField(obj, e.getFieldRef().resolve());
                         addPFGEdge(source, target);
@@ -318,6 +348,9 @@ class Solver {
         // TODO - finish me
 
         for (var callSite : recv.getVar().getInvokes()) {
+            if (!isLive(recv.getVar(), callSite)) {
+                continue;
+            }
             var method = resolveCallee(recvObj, callSite);
             var csCallSite = csManager.getCSCallSite(recv.getContext(), callSite);
             var newContext = contextSelector.selectContext(csCallSite, recvObj, method);
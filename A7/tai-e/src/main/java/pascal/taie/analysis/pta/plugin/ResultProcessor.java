@@ -29,6 +29,7 @@ import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.LineIndex;
 import pascal.taie.util.collection.Streams;
 
 import java.io.File;
@@ -36,16 +37,16 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Predicate;
+import java.util.Set;
 import java.util.function.ToIntFunction;
 
 import static pascal.taie.util.collection.CollectionUtils.sum;
@@ -54,7 +55,8 @@ import static pascal.taie.util.collection.CollectionUtils.sum;
  * Dump points-to set to file or compare the analysis result with
  * the ones read from input file.
  * Currently, the compare functionality is mainly for testing purpose.
- * It is not efficient and not recommended applying on large program.
+ * The expected points-to sets are indexed by hashes (see {@link LineIndex})
+ * instead of being kept as strings.
  */
 public class ResultProcessor {
 
@@ -150,43 +152,62 @@ public class ResultProcessor {
 
     private static void comparePointsToSet(PointerAnalysisResult result, String input) {
         logger.info("Comparing points-to set with {} ...", input);
-        var inputs = readPointsToSets(input);
+        LineIndex inputs = readPointsToSets(input);
         Map<String, Pointer> pointers = new LinkedHashMap<>();
         addPointers(pointers, result.getCSVars());
         addPointers(pointers, result.getStaticFields());
         addPointers(pointers, result.getInstanceFields());
         addPointers(pointers, result.getArrayIndexes());
         List<String> mismatches = new ArrayList<>();
+        Set<Long> givenPointers = new HashSet<>();
         pointers.forEach((pointerStr, pointer) -> {
             String given = toString(pointer.getPointsToSet());
-            String expected = inputs.get(pointerStr);
-            if (!given.equals(expected)) {
-                mismatches.add(String.format("%s, expected: %s, given: %s",
-                        pointerStr, expected, given));
+            long key = LineIndex.hash(pointerStr);
+            givenPointers.add(key);
+            // the last line of a pointer overrides the previous ones,
+            // and the expected line is only read for mismatches
+            int entry = inputs.find(key);
+            if (entry == -1 || inputs.getValue(entry) != LineIndex.hash(given)) {
+                String expected = entry == -1 ? null :
+                        inputs.readLine(entry).split(SEP)[1];
+                if (!given.equals(expected)) {
+                    mismatches.add(String.format("%s, expected: %s, given: %s",
+                            pointerStr, expected, given));
+                }
             }
         });
-        inputs.keySet()
-                .stream()
-                .filter(Predicate.not(pointers::containsKey))
-                .forEach(pointerStr -> {
-                    String expected = inputs.get(pointerStr);
-                    mismatches.add(String.format("%s, expected: %s, given: null",
-                            pointerStr, expected));
-                });
+        for (int entry = 0; entry < inputs.size(); ++entry) {
+            long key = inputs.getKey(entry);
+            // report each missing pointer once, at its first line
+            if (!givenPointers.contains(key) && inputs.findPrevious(entry) == -1) {
+                String pointerStr = inputs.readLine(entry).split(SEP)[0];
+                String expected = inputs.readLine(inputs.find(key)).split(SEP)[1];
+                mismatches.add(String.format("%s, expected: %s, given: null",
+                        pointerStr, expected));
+            }
+        }
         if (!mismatches.isEmpty()) {
             throw new AnalysisException("Mismatches of points-to set\n" +
                     String.join("\n", mismatches));
         }
     }
 
-    private static Map<String, String> readPointsToSets(String input) {
+    /**
+     * Reads the expected points-to sets into a {@link LineIndex},
+     * where each line is indexed by the hash of its pointer,
+     * and holds the hash of its points-to set.
+     */
+    private static LineIndex readPointsToSets(String input) {
         try {
-            Map<String, String> result = new LinkedHashMap<>();
-            Files.lines(Path.of(input))
-                    .filter(line -> line.contains(SEP))
-                    .map(line -> line.split(SEP))
-                    .forEach(s -> result.put(s[0], s[1]));
-            return result;
+            return LineIndex.build(Path.of(input), (line, index) -> {
+                int sep = line.indexOf(SEP);
+                if (sep != -1) {
+                    int start = sep + SEP.length();
+                    int end = line.indexOf(SEP, start);
+                    index.add(LineIndex.hash(line, 0, sep),
+                            LineIndex.hash(line, start, end != -1 ? end : line.length()));
+                }
+            });
         } catch (IOException e) {
             throw new AnalysisException(
                     "Failed to read points-to set from " + input, e);